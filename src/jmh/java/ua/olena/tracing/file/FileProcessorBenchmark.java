@@ -0,0 +1,81 @@
+package ua.olena.tracing.file;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import ua.olena.tracing.graph.Graph;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing of a generated file into graphs. Run with {@code java -jar target/benchmarks.jar FileProcessor}.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileProcessorBenchmark {
+    private static final String SERVICES = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+
+    @Param({"10", "1000"})
+    private int lines;
+
+    @Param({"10", "500"})
+    private int tracesPerLine;
+
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("traces", ".csv");
+        Random random = new Random(20201013L);
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int line = 0; line < lines; line++) {
+                for (int trace = 0; trace < tracesPerLine; trace++) {
+                    if (trace > 0)
+                        writer.write(", ");
+                    writer.write(SERVICES.charAt(random.nextInt(SERVICES.length())));
+                    writer.write(SERVICES.charAt(random.nextInt(SERVICES.length())));
+                    writer.write(Integer.toString(1 + random.nextInt(1000)));
+                }
+                writer.newLine();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public void readGraphs(Blackhole blackhole) throws IOException {
+        try (TraceReader reader = new TraceReader(file)) {
+            Graph graph;
+            while ((graph = reader.next()) != null)
+                blackhole.consume(graph);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package ua.olena.tracing.graph;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building of the graph and every query over synthetic graphs of different size, density, shape and
+ * latency range. Run with {@code java -jar target/benchmarks.jar GraphBenchmark}.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraphBenchmark {
+    private static final int TRACES = 1024;
+    private static final long SEED = 20201013L;
+
+    @Param({"100", "1000"})
+    private int size;
+
+    @Param({"2", "4"})
+    private int degree;
+
+    @Param({"DAG", "CYCLIC"})
+    private SyntheticGraph.Shape shape;
+
+    @Param({"10", "100"})
+    private int maxLatency;
+
+    private SyntheticGraph synthetic;
+    private Graph graph;
+    private String[] traces;
+    private String from;
+    private String to;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        synthetic = new SyntheticGraph(size, degree, shape, maxLatency, SEED);
+        graph = synthetic.toGraph().freeze();
+
+        Random random = new Random(SEED);
+        traces = new String[TRACES];
+        for (int i = 0; i < TRACES; i++)
+            traces[i] = synthetic.trace(5, random);
+        from = SyntheticGraph.name(0);
+        to = SyntheticGraph.name(size - 1);
+    }
+
+    @Benchmark
+    public Graph addEdge() {
+        return synthetic.toGraph().freeze();
+    }
+
+    @Benchmark
+    public String getAverageLatency() {
+        return graph.getAverageLatency(traces[next++ & (TRACES - 1)]);
+    }
+
+    @Benchmark
+    public long getTracesByStops() {
+        return graph.countTracesByStops(from, to, 10, Condition.MAX_STOPS);
+    }
+
+    @Benchmark
+    public Integer getShortestTrace() {
+        return graph.getShortestTrace(from, to);
+    }
+
+    @Benchmark
+    public long getShortestTraces() {
+        return graph.countShortestTraces(from, to, maxLatency * 10);
+    }
+}
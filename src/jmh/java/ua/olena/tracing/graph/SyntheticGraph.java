@@ -0,0 +1,94 @@
+package ua.olena.tracing.graph;
+
+import java.util.Random;
+
+/**
+ * Generates reproducible random graphs for benchmarks. Services are named s0, s1 and so on.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+public final class SyntheticGraph {
+    public enum Shape {
+        /** Connections only go to services with greater ids, there are no loops */
+        DAG,
+        /** Connections go to any service, so traces can contain loops */
+        CYCLIC
+    }
+
+    private final int size;
+    private final int degree;
+    private final int edges;
+    private final int[] from;
+    private final int[] to;
+    private final int[] latencies;
+
+    /**
+     * @param size number of services
+     * @param degree number of connections from every service
+     * @param shape loops allowed or not
+     * @param maxLatency latencies are distributed between 1 and this number
+     * @param seed seed of the random generator
+     */
+    public SyntheticGraph(int size, int degree, Shape shape, int maxLatency, long seed) {
+        Random random = new Random(seed);
+        this.size = size;
+        this.degree = degree;
+        from = new int[size * degree];
+        to = new int[size * degree];
+        latencies = new int[size * degree];
+        int edge = 0;
+        for (int vertex = 0; vertex < size; vertex++) {
+            for (int i = 0; i < degree; i++) {
+                int target;
+                if (shape == Shape.DAG) {
+                    if (vertex == size - 1)
+                        break;
+                    target = vertex + 1 + random.nextInt(size - vertex - 1);
+                } else {
+                    target = random.nextInt(size);
+                }
+                from[edge] = vertex;
+                to[edge] = target;
+                latencies[edge] = 1 + random.nextInt(maxLatency);
+                edge++;
+            }
+        }
+        edges = edge;
+    }
+
+    public static String name(int id) {
+        return "s" + id;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Graph toGraph() {
+        Graph graph = new Graph();
+        for (int i = 0; i < edges; i++)
+            graph.addEdge(name(from[i]), name(to[i]), latencies[i]);
+
+        return graph;
+    }
+
+    /**
+     * Random trace following existing connections, like A-B-C.
+     *
+     * @param hops maximal number of hops, the trace is shorter if it reaches a service without connections
+     */
+    public String trace(int hops, Random random) {
+        int vertex = random.nextInt(size);
+        StringBuilder trace = new StringBuilder(name(vertex));
+        for (int hop = 0; hop < hops; hop++) {
+            int edge = vertex * degree + random.nextInt(degree);
+            if (edge >= edges)
+                break;
+            vertex = to[edge];
+            trace.append('-').append(name(vertex));
+        }
+
+        return trace.toString();
+    }
+}
@@ -1,27 +1,203 @@
 package ua.olena.tracing;
 
 import ua.olena.tracing.file.FileProcessor;
+import ua.olena.tracing.file.OutputFormat;
+import ua.olena.tracing.file.PathEvaluator;
+import ua.olena.tracing.file.QueryReader;
+import ua.olena.tracing.file.SpanLogIngester;
+import ua.olena.tracing.file.StreamProcessor;
+import ua.olena.tracing.graph.ConcurrentGraph;
+import ua.olena.tracing.graph.Graph;
+import ua.olena.tracing.graph.Query;
+import ua.olena.tracing.graph.SlidingWindowGraph;
+import ua.olena.tracing.server.QueryServer;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 
 import static java.lang.System.out;
 
 /**
  * Main class processing requests.
+ * <p>
+ * Usage: {@code <filename> [--threads=N] [--queries=<filename>] [--snapshot] [--write-snapshot=<filename>]
+ * [--format=text|csv|binary] [--server=<port> [--timeout=<millis>]] [--paths=<filename>] [--window=<minutes>]
+ * [--spans]}.
+ * Lines of the file are processed in parallel by N threads if provided, queries from the query file are answered
+ * instead of the default ones. With --snapshot the file is a binary snapshot of a graph, --write-snapshot writes
+ * the snapshot of the graph from a file with one line instead of answering queries. Results are printed as text
+ * unless another format is provided. With --server traces of all lines are loaded into one graph that is queried
+ * over HTTP on the local port. With --paths traces of all lines are loaded into one graph too and latency of every
+ * path of the paths file is printed instead of answering queries. With --window lines of timestamped traces are
+ * read as a stream, from the standard input if the filename is "-", and queries are answered about the traces of
+ * the last minutes after every line. With --spans the file is a log of raw spans that is aggregated into one graph,
+ * in parallel by N threads if provided, to answer queries, write the snapshot or check the paths against. Options
+ * that do not apply to the chosen mode are rejected, e.g. --timeout without --server.
  *
  * @author Olena Openko
  * 13.10.2020
  */
 public class Main {
+    private static final String THREADS = "--threads=";
+    private static final String QUERIES = "--queries=";
+    private static final String SNAPSHOT = "--snapshot";
+    private static final String WRITE_SNAPSHOT = "--write-snapshot=";
+    private static final String SERVER = "--server=";
+    private static final String TIMEOUT = "--timeout=";
+    private static final String FORMAT = "--format=";
+    private static final String PATHS = "--paths=";
+    private static final String WINDOW = "--window=";
+    private static final String SPANS = "--spans";
+    private static final long DEFAULT_TIMEOUT_MILLIS = 5000;
+
     public static void main(String[] args) {
-        if (args.length != 1) {
+        if (args.length < 1 || args[0].startsWith("--")) {
             out.println("Wrong filename, please enter filename and repeat");
         } else {
+            ExecutorService executor = null;
             try {
                 String path = args[0];
-                FileProcessor processor = new FileProcessor();
-                processor.processFile(path);
+                int threads = 0;
+                String queriesPath = null;
+                boolean snapshot = false;
+                String snapshotPath = null;
+                int port = -1;
+                long timeout = DEFAULT_TIMEOUT_MILLIS;
+                OutputFormat format = OutputFormat.TEXT;
+                String pathsPath = null;
+                long windowMinutes = 0;
+                boolean spans = false;
+                Set<String> options = new HashSet<>();
+                for (int i = 1; i < args.length; i++) {
+                    int equals = args[i].indexOf('=');
+                    options.add(equals < 0 ? args[i] : args[i].substring(0, equals + 1));
+                    if (args[i].startsWith(THREADS))
+                        threads = parseThreads(args[i]);
+                    else if (args[i].startsWith(QUERIES))
+                        queriesPath = args[i].substring(QUERIES.length());
+                    else if (args[i].equals(SNAPSHOT))
+                        snapshot = true;
+                    else if (args[i].startsWith(WRITE_SNAPSHOT))
+                        snapshotPath = args[i].substring(WRITE_SNAPSHOT.length());
+                    else if (args[i].startsWith(SERVER))
+                        port = Integer.parseInt(args[i].substring(SERVER.length()));
+                    else if (args[i].startsWith(TIMEOUT))
+                        timeout = Long.parseLong(args[i].substring(TIMEOUT.length()));
+                    else if (args[i].startsWith(FORMAT))
+                        format = OutputFormat.of(args[i].substring(FORMAT.length()));
+                    else if (args[i].startsWith(PATHS))
+                        pathsPath = args[i].substring(PATHS.length());
+                    else if (args[i].startsWith(WINDOW))
+                        windowMinutes = parseWindow(args[i]);
+                    else if (args[i].equals(SPANS))
+                        spans = true;
+                    else
+                        throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+                checkOptions(options);
+                List<Query> queries = queriesPath == null ? null : new QueryReader().readQueries(queriesPath);
+
+                if (port >= 0) {
+                    serve(path, snapshot, port, threads > 0 ? threads : Runtime.getRuntime().availableProcessors(),
+                            timeout);
+                    return;
+                }
+
+                if (threads > 0)
+                    executor = new ForkJoinPool(threads);
+                int inFlight = Math.max(1, threads * 4);
+                FileProcessor processor = new FileProcessor(queries, executor, inFlight, format);
+                if (windowMinutes > 0) {
+                    new StreamProcessor(queries, format)
+                            .process(path, new SlidingWindowGraph(Duration.ofMinutes(windowMinutes)));
+                } else if (pathsPath != null && spans) {
+                    Graph graph = new Graph();
+                    new SpanLogIngester(executor, inFlight).ingest(path, graph);
+                    new PathEvaluator(executor, inFlight).evaluate(graph, pathsPath);
+                } else if (spans) {
+                    processor.processSpans(path, snapshotPath);
+                } else if (pathsPath != null) {
+                    ConcurrentGraph graph = new ConcurrentGraph();
+                    processor.ingest(path, snapshot, graph);
+                    graph.publish();
+                    new PathEvaluator(executor, inFlight).evaluate(graph.snapshot(), pathsPath);
+                } else if (snapshotPath != null) {
+                    processor.writeSnapshot(path, snapshotPath);
+                } else if (snapshot) {
+                    processor.processSnapshot(path);
+                } else {
+                    processor.processFile(path);
+                }
             } catch (Exception e) {
                 out.println(e.getMessage());
+            } finally {
+                if (executor != null)
+                    executor.shutdownNow();
             }
         }
     }
+
+    private static void serve(String path, boolean snapshot, int port, int threads, long timeout) throws IOException {
+        ConcurrentGraph graph = new ConcurrentGraph();
+        new FileProcessor().ingest(path, snapshot, graph);
+        graph.publish();
+        QueryServer server = new QueryServer(graph, new InetSocketAddress(InetAddress.getLoopbackAddress(), port),
+                threads, timeout);
+        server.start();
+        out.println("Listening on port " + server.getPort());
+    }
+
+    /**
+     * Rejects options that do not apply to the chosen mode instead of ignoring them.
+     */
+    private static void checkOptions(Set<String> options) {
+        if (options.contains(TIMEOUT) && !options.contains(SERVER))
+            throw new IllegalArgumentException("Option --timeout can only be used with --server");
+        checkConflicts(options, SERVER, QUERIES, WRITE_SNAPSHOT, FORMAT, PATHS, WINDOW, SPANS);
+        checkConflicts(options, WINDOW, THREADS, SNAPSHOT, WRITE_SNAPSHOT, PATHS, SPANS);
+        checkConflicts(options, PATHS, QUERIES, FORMAT, WRITE_SNAPSHOT);
+        checkConflicts(options, WRITE_SNAPSHOT, SNAPSHOT, QUERIES, FORMAT);
+        checkConflicts(options, SPANS, SNAPSHOT);
+        // only span logs and paths are read with threads, snapshots and single-line files are read by one thread
+        if (options.contains(THREADS) && !options.contains(SPANS) && !options.contains(PATHS)
+                && !options.contains(SERVER) && (options.contains(WRITE_SNAPSHOT) || options.contains(SNAPSHOT)))
+            throw new IllegalArgumentException("Option --threads can not be used with "
+                    + name(options.contains(SNAPSHOT) ? SNAPSHOT : WRITE_SNAPSHOT));
+    }
+
+    private static void checkConflicts(Set<String> options, String option, String... others) {
+        if (!options.contains(option))
+            return;
+        for (String other : others) {
+            if (options.contains(other))
+                throw new IllegalArgumentException("Option " + name(option) + " can not be used with " + name(other));
+        }
+    }
+
+    private static String name(String option) {
+        return option.endsWith("=") ? option.substring(0, option.length() - 1) : option;
+    }
+
+    private static long parseWindow(String option) {
+        long minutes = Long.parseLong(option.substring(WINDOW.length()));
+        if (minutes < 1)
+            throw new IllegalArgumentException("Window must be at least one minute: " + minutes);
+
+        return minutes;
+    }
+
+    private static int parseThreads(String option) {
+        int threads = Integer.parseInt(option.substring(THREADS.length()));
+        if (threads < 1)
+            throw new IllegalArgumentException("Number of threads must be positive: " + threads);
+
+        return threads;
+    }
 }
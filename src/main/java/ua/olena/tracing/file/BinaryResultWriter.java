@@ -0,0 +1,40 @@
+package ua.olena.tracing.file;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes the number of queries once and then results of every line of traces as longs.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+final class BinaryResultWriter implements ResultWriter {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final DataOutputStream output;
+    private final int queries;
+    private boolean headerWritten;
+
+    BinaryResultWriter(OutputStream output, int queries) {
+        this.output = new DataOutputStream(new BufferedOutputStream(output, BUFFER_SIZE));
+        this.queries = queries;
+    }
+
+    @Override
+    public void write(long[] results) throws IOException {
+        if (!headerWritten) {
+            output.writeInt(queries);
+            headerWritten = true;
+        }
+        for (long result : results)
+            output.writeLong(result);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        output.flush();
+    }
+}
@@ -0,0 +1,91 @@
+package ua.olena.tracing.file;
+
+import ua.olena.tracing.graph.Graph;
+import ua.olena.tracing.graph.Query;
+import ua.olena.tracing.graph.QueryPlan;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Base of the text writers: bytes are collected in a buffer that is written to the stream when it is full, numbers
+ * are written digit by digit without creating strings. Texts of missing traces are prepared once per query.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+abstract class BufferedResultWriter implements ResultWriter {
+    static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final OutputStream output;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final byte[] digits = new byte[20];
+    private final byte[][] missing;
+    private final byte[][] exceeded;
+    private int position;
+
+    BufferedResultWriter(OutputStream output, List<Query> queries) {
+        this.output = output;
+        missing = new byte[queries.size()][];
+        exceeded = new byte[queries.size()][];
+        for (int i = 0; i < missing.length; i++) {
+            missing[i] = bytes(QueryPlan.format(queries.get(i), Graph.NO_TRACE));
+            exceeded[i] = bytes(QueryPlan.format(queries.get(i), QueryPlan.BUDGET_EXCEEDED));
+        }
+    }
+
+    /**
+     * Writes result of the query formatted the same way as Graph methods do.
+     */
+    void putResult(int query, long value) throws IOException {
+        if (value == Graph.NO_TRACE)
+            put(missing[query]);
+        else if (value == QueryPlan.BUDGET_EXCEEDED)
+            put(exceeded[query]);
+        else
+            put(value);
+    }
+
+    void put(long value) throws IOException {
+        if (value < 0) {
+            put((byte) '-');
+            value = -value;
+        }
+        int length = 0;
+        do {
+            digits[length++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        while (length > 0)
+            put(digits[--length]);
+    }
+
+    void put(byte[] bytes) throws IOException {
+        for (byte b : bytes)
+            put(b);
+    }
+
+    void put(byte b) throws IOException {
+        if (position == buffer.length)
+            drain();
+        buffer[position++] = b;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+        output.flush();
+    }
+
+    static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void drain() throws IOException {
+        output.write(buffer, 0, position);
+        position = 0;
+    }
+}
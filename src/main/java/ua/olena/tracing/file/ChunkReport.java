@@ -0,0 +1,105 @@
+package ua.olena.tracing.file;
+
+import java.util.Locale;
+
+/**
+ * Throughput and errors of one chunk of a span log, a range of bytes starting and ending at line boundaries.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+public final class ChunkReport {
+    private final int index;
+    private final long start;
+    private final long end;
+    private final long spans;
+    private final long edges;
+    private final long errors;
+    private final String firstError;
+    private final long nanos;
+
+    ChunkReport(int index, long start, long end, long spans, long edges, long errors, String firstError,
+                long nanos) {
+        this.index = index;
+        this.start = start;
+        this.end = end;
+        this.spans = spans;
+        this.edges = edges;
+        this.errors = errors;
+        this.firstError = firstError;
+        this.nanos = nanos;
+    }
+
+    /**
+     * @return number of the chunk in the file starting from 0
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * @return offset of the first byte of the chunk
+     */
+    public long getStart() {
+        return start;
+    }
+
+    /**
+     * @return offset of the byte after the chunk
+     */
+    public long getEnd() {
+        return end;
+    }
+
+    /**
+     * @return number of spans read, including root spans without a parent
+     */
+    public long getSpans() {
+        return spans;
+    }
+
+    /**
+     * @return number of spans with a parent added to the graph as connections
+     */
+    public long getEdges() {
+        return edges;
+    }
+
+    /**
+     * @return number of lines that do not follow the format, they are skipped
+     */
+    public long getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return message about the first line that does not follow the format or null if there is none
+     */
+    public String getFirstError() {
+        return firstError;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    public double getSpansPerSecond() {
+        return spans / seconds();
+    }
+
+    public double getBytesPerSecond() {
+        return (end - start) / seconds();
+    }
+
+    private double seconds() {
+        return Math.max(nanos, 1) / 1e9;
+    }
+
+    @Override
+    public String toString() {
+        String report = String.format(Locale.ROOT,
+                "Chunk %d, bytes %d-%d: %d spans, %d errors, %.0f spans/s, %.1f MB/s",
+                index, start, end, spans, errors, getSpansPerSecond(), getBytesPerSecond() / (1 << 20));
+        return firstError == null ? report : report + ", first error: " + firstError;
+    }
+}
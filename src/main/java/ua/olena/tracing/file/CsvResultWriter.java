@@ -0,0 +1,43 @@
+package ua.olena.tracing.file;
+
+import ua.olena.tracing.graph.Query;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Writes a header with the queries like "stops C C max 3" and a row of results for every line of traces.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+final class CsvResultWriter extends BufferedResultWriter {
+    private final List<Query> queries;
+    private boolean headerWritten;
+
+    CsvResultWriter(OutputStream output, List<Query> queries) {
+        super(output, queries);
+        this.queries = queries;
+    }
+
+    @Override
+    public void write(long[] results) throws IOException {
+        if (!headerWritten) {
+            for (int i = 0; i < queries.size(); i++) {
+                if (i > 0)
+                    put((byte) ',');
+                put(bytes('"' + queries.get(i).toString().replace("\"", "\"\"") + '"'));
+            }
+            put(LINE_SEPARATOR);
+            headerWritten = true;
+        }
+
+        for (int i = 0; i < results.length; i++) {
+            if (i > 0)
+                put((byte) ',');
+            putResult(i, results[i]);
+        }
+        put(LINE_SEPARATOR);
+    }
+}
@@ -1,111 +1,285 @@
 package ua.olena.tracing.file;
 
 import ua.olena.tracing.graph.Condition;
+import ua.olena.tracing.graph.ConcurrentGraph;
 import ua.olena.tracing.graph.Graph;
+import ua.olena.tracing.graph.GraphSnapshot;
+import ua.olena.tracing.graph.Query;
+import ua.olena.tracing.graph.QueryPlan;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 import static java.lang.System.out;
 
 /**
- * Reads file, puts each line into a separate list that contains a list of nodes.
+ * Reads file line by line, builds a graph for each line and prints answers to the queries, by default the ten
+ * questions described in README. Answers are calculated as numbers and written through a buffered
+ * {@link ResultWriter} in the chosen {@link OutputFormat}, so no strings are built per line.
  *
  * @author Olena Openko
  * 13.10.2020
  */
 public class FileProcessor {
-    private Pattern tracePattern = Pattern.compile("\\w\\w[0-9]+");
+    static final List<Query> DEFAULT_QUERIES = List.of(
+            //1. The average latency of the trace A-B-C.
+            Query.latency("A-B-C"),
+            //2. The average latency of the trace A-D.
+            Query.latency("A-D"),
+            //3. The average latency of the trace A-D-C.
+            Query.latency("A-D-C"),
+            //4. The average latency of the trace A-E-B-C-D.
+            Query.latency("A-E-B-C-D"),
+            //5. The average latency of the trace A-E-D.
+            Query.latency("A-E-D"),
+            //6. The number of traces originating in service C and ending in service C with a maximum of 3 hops.
+            Query.stops("C", "C", 3, Condition.MAX_STOPS),
+            //7. The number of traces originating in A and ending in C with exactly 4 hops.
+            Query.stops("A", "C", 4, Condition.EXACT_STOPS),
+            //8. The length of the shortest trace (in terms of latency) between A and C.
+            Query.shortest("A", "C"),
+            //9. The length of the shortest trace (in terms of latency) between B and B.
+            Query.shortest("B", "B"),
+            //10. The number of different traces from C to C with an average latency of less than 30.
+            Query.budget("C", "C", 30));
+
+    private final QueryPlan plan;
+    private final Executor executor;
+    private final int maxLinesInFlight;
+    private final OutputFormat format;
 
     /**
-     * For each line read creates a graph and calculates all the values. Prints them to System.out
+     * Creates processor that calculates values for each line in the calling thread.
+     */
+    public FileProcessor() {
+        this(DEFAULT_QUERIES, null, 1);
+    }
+
+    /**
+     * Creates processor that calculates values for lines in parallel. Results are still printed in the order of lines,
+     * reading of the file waits while the number of lines that are not printed yet is at the limit.
      *
-     * @param path Full path to the file
+     * @param executor executor to calculate values for lines
+     * @param maxLinesInFlight maximal number of lines read but not printed yet
      */
-    public boolean processFile(String path) {
-        List<List<String>> lines = readLines(path);
-        for (List<String> line : lines) {
-            Graph graph = buildGraph(line);
+    public FileProcessor(Executor executor, int maxLinesInFlight) {
+        this(DEFAULT_QUERIES, executor, maxLinesInFlight);
+    }
 
-            //1. The average latency of the trace A-B-C.
-            out.println(graph.getAverageLatency("A-B-C"));
+    /**
+     * Creates processor that answers provided queries for each line instead of the default ten.
+     *
+     * @param queries queries to answer, results are printed in the same order
+     * @param executor executor to calculate values for lines or null to calculate them in the calling thread
+     * @param maxLinesInFlight maximal number of lines read but not printed yet
+     */
+    public FileProcessor(List<Query> queries, Executor executor, int maxLinesInFlight) {
+        this(queries, executor, maxLinesInFlight, OutputFormat.TEXT);
+    }
 
-            //2. The average latency of the trace A-D.
-            out.println(graph.getAverageLatency("A-D"));
+    /**
+     * Creates processor that prints results in the provided format.
+     *
+     * @param queries queries to answer or null for the default ten
+     * @param executor executor to calculate values for lines or null to calculate them in the calling thread
+     * @param maxLinesInFlight maximal number of lines read but not printed yet
+     * @param format format of the results
+     */
+    public FileProcessor(List<Query> queries, Executor executor, int maxLinesInFlight, OutputFormat format) {
+        if (maxLinesInFlight < 1)
+            throw new IllegalArgumentException("Number of lines in flight must be positive: " + maxLinesInFlight);
+        this.plan = new QueryPlan(queries != null ? queries : DEFAULT_QUERIES);
+        this.executor = executor;
+        this.maxLinesInFlight = maxLinesInFlight;
+        this.format = format;
+    }
 
-            //3. The average latency of the trace A-D-C.
-            out.println(graph.getAverageLatency("A-D-C"));
+    /**
+     * For each line read creates a graph and calculates all the values. Prints them to System.out
+     *
+     * @param path Full path to the file
+     */
+    public boolean processFile(String path) {
+        Path file = existing(path);
 
-            //4. The average latency of the trace A-E-B-C-D.
-            out.println(graph.getAverageLatency("A-E-B-C-D"));
+        ResultWriter writer = format.writer(out, plan.getQueries());
+        Deque<CompletableFuture<long[]>> inFlight = new ArrayDeque<>();
+        try (TraceReader reader = new TraceReader(file)) {
+            Graph graph;
+            while ((graph = reader.next()) != null) {
+                if (executor == null) {
+                    write(writer, plan.evaluate(graph));
+                } else {
+                    if (inFlight.size() == maxLinesInFlight)
+                        print(inFlight, writer);
+                    Graph line = graph;
+                    inFlight.add(CompletableFuture.supplyAsync(() -> plan.evaluate(line), executor));
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Unable to read file with path: " + path, e);
+        } finally {
+            try {
+                while (!inFlight.isEmpty())
+                    print(inFlight, writer);
+            } finally {
+                flush(writer);
+            }
+        }
+        return true;
+    }
 
-            //5. The average latency of the trace A-E-D.
-            out.println(graph.getAverageLatency("A-E-D"));
+    /**
+     * Loads graph from a binary snapshot and prints calculated values for it to System.out
+     *
+     * @param path Full path to the snapshot
+     */
+    public boolean processSnapshot(String path) {
+        Path file = existing(path);
 
-            //6. The number of traces originating in service C and ending in service C with a maximum of 3 hops.
-            out.println(graph.getTracesByStops("C", "C", 3, Condition.MAX_STOPS));
+        try {
+            ResultWriter writer = format.writer(out, plan.getQueries());
+            write(writer, plan.evaluate(GraphSnapshot.read(file)));
+            flush(writer);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Unable to read file with path: " + path, e);
+        }
+        return true;
+    }
 
-            //7. The number of traces originating in A and ending in C with exactly 4 hops.
-            out.println(graph.getTracesByStops("A", "C", 4, Condition.EXACT_STOPS));
+    /**
+     * Builds graph from a file with one line of traces and writes its binary snapshot.
+     *
+     * @param path Full path to the file
+     * @param snapshotPath Full path to the snapshot to write
+     */
+    public boolean writeSnapshot(String path, String snapshotPath) {
+        Path file = existing(path);
 
-            //8. The length of the shortest trace (in terms of latency) between A and C.
-            out.println(graph.getShortestTrace("A", "C"));
+        try (TraceReader reader = new TraceReader(file)) {
+            Graph graph = reader.next();
+            if (graph == null || reader.next() != null)
+                throw new IllegalArgumentException("Snapshot can be written for a file with one line only: " + path);
+            GraphSnapshot.write(graph, Paths.get(snapshotPath));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Unable to write snapshot with path: " + snapshotPath, e);
+        }
+        return true;
+    }
 
-            //9. The length of the shortest trace (in terms of latency) between B and B.
-            out.println(graph.getShortestTrace("B", "B"));
+    /**
+     * Adds traces of all lines of the file, or all connections of the snapshot, into one graph, e.g. to serve
+     * queries about them.
+     *
+     * @param path Full path to the file
+     * @param snapshot whether the file is a binary snapshot
+     * @param graph graph to add traces to
+     */
+    public boolean ingest(String path, boolean snapshot, ConcurrentGraph graph) {
+        Path file = existing(path);
 
-            //10. The number of different traces from C to C with an average latency of less than 30.
-            out.println(graph.getShortestTraces("C", "C", 30));
-            out.println();
+        try {
+            if (snapshot) {
+                graph.addGraph(GraphSnapshot.read(file));
+            } else {
+                try (TraceReader reader = new TraceReader(file)) {
+                    while (reader.next(graph)) {
+                        // every line is added to the same graph
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Unable to read file with path: " + path, e);
         }
         return true;
     }
 
     /**
-     * Reads file, puts each line into a separate list that contains a list of nodes.
+     * Aggregates a log of raw spans, one span like 4bf92f35,auth-svc,billing-svc,12 per line, into one graph and
+     * prints answers to the queries about it. With a snapshot path the binary snapshot of the graph is written
+     * instead and the report of every chunk is printed.
      *
-     * @param path String full file path
-     * @return List of lines, each line is a List of String nodes
+     * @param path Full path to the span log
+     * @param snapshotPath Full path to the snapshot to write or null to answer the queries
+     * @see SpanLogIngester
      */
-    private List<List<String>> readLines(String path) {
-        if (Files.exists(Paths.get(path))) {
-            try {
-                List<String> lines = Files.readAllLines(Paths.get(path), StandardCharsets.UTF_8);
-                return lines.stream()
-                        .map(line -> List.of(line.split("\\s*,\\s*")))
-                        .collect(Collectors.toList());
-            } catch (IOException e) {
-                throw new IllegalArgumentException("Unable to read file with path: " + path, e);
-            }
-        } else {
-            throw new IllegalArgumentException("Wrong file path: " + path);
+    public boolean processSpans(String path, String snapshotPath) {
+        Graph graph = new Graph();
+        List<ChunkReport> reports = new SpanLogIngester(executor, maxLinesInFlight).ingest(path, graph);
+        if (snapshotPath == null) {
+            ResultWriter writer = format.writer(out, plan.getQueries());
+            write(writer, plan.evaluate(graph));
+            flush(writer);
+            return true;
         }
 
+        try {
+            GraphSnapshot.write(graph, Paths.get(snapshotPath));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Unable to write snapshot with path: " + snapshotPath, e);
+        }
+        reports.forEach(out::println);
+        return true;
     }
 
-    private Graph buildGraph(List<String> line) {
-        Graph graph = new Graph();
-        for (String trace : line) {
-            if (isValid(trace)) {
-                String from = trace.substring(0, 1);
-                String to = trace.substring(1, 2);
-                Integer latency = Integer.parseInt(trace.substring(2));
+    static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw e;
+        }
+    }
 
-                graph.addEdge(from, to, latency);
-            } else {
-                throw new IllegalArgumentException("One of the traces does not follow format of LetterLetterNumber " + trace);
-            }
+    /**
+     * @throws IllegalArgumentException if there is no file with the path
+     */
+    static Path existing(String path) {
+        Path file = Paths.get(path);
+        if (!Files.exists(file))
+            throw new IllegalArgumentException("Wrong file path: " + path);
+
+        return file;
+    }
+
+    /**
+     * Waits for the values of the oldest line in flight and writes them.
+     */
+    private void print(Deque<CompletableFuture<long[]>> inFlight, ResultWriter writer) {
+        try {
+            write(writer, inFlight.poll().join());
+        } catch (CompletionException e) {
+            inFlight.forEach(results -> results.cancel(false));
+            inFlight.clear();
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw e;
         }
+    }
 
-        return graph;
+    static void write(ResultWriter writer, long[] results) {
+        try {
+            writer.write(results);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write results", e);
+        }
     }
 
-    private boolean isValid(String trace) {
-        return tracePattern.matcher(trace).matches();
+    static void flush(ResultWriter writer) {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write results", e);
+        }
     }
 }
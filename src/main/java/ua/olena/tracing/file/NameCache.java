@@ -0,0 +1,66 @@
+package ua.olena.tracing.file;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Turns service names read as bytes into strings, creating only one string for every distinct name. Lookups
+ * compare bytes in place, so names that were already seen do not allocate anything.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+final class NameCache {
+    private byte[][] bytes = new byte[16][];
+    private String[] names = new String[16];
+    private int[] hashes = new int[16];
+    private int size;
+
+    String get(byte[] chars, int start, int end) {
+        int hash = hash(chars, start, end);
+        int mask = names.length - 1;
+        int slot = hash & mask;
+        while (names[slot] != null) {
+            if (hashes[slot] == hash && Arrays.equals(bytes[slot], 0, bytes[slot].length, chars, start, end))
+                return names[slot];
+            slot = (slot + 1) & mask;
+        }
+
+        String name = new String(chars, start, end - start, StandardCharsets.UTF_8);
+        bytes[slot] = Arrays.copyOfRange(chars, start, end);
+        names[slot] = name;
+        hashes[slot] = hash;
+        if (++size * 2 > names.length)
+            rehash();
+
+        return name;
+    }
+
+    private void rehash() {
+        byte[][] oldBytes = bytes;
+        String[] oldNames = names;
+        int[] oldHashes = hashes;
+        bytes = new byte[oldNames.length * 2][];
+        names = new String[oldNames.length * 2];
+        hashes = new int[oldNames.length * 2];
+        int mask = names.length - 1;
+        for (int i = 0; i < oldNames.length; i++) {
+            if (oldNames[i] == null)
+                continue;
+            int slot = oldHashes[i] & mask;
+            while (names[slot] != null)
+                slot = (slot + 1) & mask;
+            bytes[slot] = oldBytes[i];
+            names[slot] = oldNames[i];
+            hashes[slot] = oldHashes[i];
+        }
+    }
+
+    private static int hash(byte[] chars, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++)
+            hash = 31 * hash + chars[i];
+
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,58 @@
+package ua.olena.tracing.file;
+
+import ua.olena.tracing.graph.Query;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Formats the results of the queries can be written in.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+public enum OutputFormat {
+    /**
+     * One result per line, lines of traces are separated by an empty line, the format described in README.
+     */
+    TEXT,
+    /**
+     * Header with the queries and one row of results per line of traces.
+     */
+    CSV,
+    /**
+     * Number of queries as int and results of every line of traces as longs, big endian. Missing traces are -1,
+     * queries not finished within the budget are -2.
+     */
+    BINARY;
+
+    /**
+     * @param name name of the format in any case
+     * @return format
+     * @throws IllegalArgumentException if there is no such format
+     */
+    public static OutputFormat of(String name) {
+        for (OutputFormat format : values()) {
+            if (format.name().equals(name.toUpperCase(Locale.ROOT)))
+                return format;
+        }
+        throw new IllegalArgumentException("Unknown output format: " + name);
+    }
+
+    /**
+     * @param output stream to write to, it is not closed by the writer
+     * @param queries queries the results are for
+     * @return writer of the results in this format
+     */
+    public ResultWriter writer(OutputStream output, List<Query> queries) {
+        switch (this) {
+            case CSV:
+                return new CsvResultWriter(output, queries);
+            case BINARY:
+                return new BinaryResultWriter(output, queries.size());
+            default:
+                return new TextResultWriter(output, queries);
+        }
+    }
+}
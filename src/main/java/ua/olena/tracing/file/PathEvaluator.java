@@ -0,0 +1,144 @@
+package ua.olena.tracing.file;
+
+import ua.olena.tracing.graph.Graph;
+import ua.olena.tracing.graph.PathBatch;
+import ua.olena.tracing.graph.PathReport;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static java.lang.System.out;
+
+/**
+ * Calculates latency of every recorded path of a file, one path like A-B-C per line, against a graph. The file is
+ * split into chunks of bytes at line breaks, services of every chunk are resolved from its bytes directly into a
+ * {@link PathBatch} and evaluated as a whole, in parallel if the evaluator has an executor. Empty lines are skipped.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+public class PathEvaluator {
+    private static final long CHUNK_BYTES = 1 << 22;
+
+    private final Executor executor;
+    private final int maxChunksInFlight;
+
+    /**
+     * Creates evaluator that calculates latencies in the calling thread.
+     */
+    public PathEvaluator() {
+        this(null, 1);
+    }
+
+    /**
+     * @param executor executor to evaluate chunks or null to evaluate them in the calling thread
+     * @param maxChunksInFlight maximal number of chunks read but not printed yet
+     */
+    public PathEvaluator(Executor executor, int maxChunksInFlight) {
+        if (maxChunksInFlight < 1)
+            throw new IllegalArgumentException("Number of chunks in flight must be positive: " + maxChunksInFlight);
+        this.executor = executor;
+        this.maxChunksInFlight = maxChunksInFlight;
+    }
+
+    /**
+     * Prints latency of every path in the order of lines to System.out, then the summary of missing connections.
+     *
+     * @param graph graph the paths are checked against, must not change meanwhile
+     * @param path Full path to the file with paths
+     * @return summary of all paths
+     */
+    public PathReport evaluate(Graph graph, String path) {
+        Path file = FileProcessor.existing(path);
+        graph.freeze();
+        PathResultWriter writer = new PathResultWriter(out);
+        Deque<CompletableFuture<PathChunk>> inFlight = new ArrayDeque<>();
+        PathReport report = null;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // an empty file is one empty chunk, so there is a report for it too
+            long[] bounds = SpanLogReader.split(channel, CHUNK_BYTES);
+            for (int i = 0; i < bounds.length - 1; i++) {
+                if (inFlight.size() == maxChunksInFlight)
+                    report = merge(report, writeChunk(inFlight, writer));
+                inFlight.add(evaluate(graph, channel, bounds[i], bounds[i + 1]));
+            }
+            while (!inFlight.isEmpty())
+                report = merge(report, writeChunk(inFlight, writer));
+            writer.writeSummary(report);
+        } catch (IOException | UncheckedIOException e) {
+            throw new IllegalArgumentException("Unable to read file with path: " + path, e);
+        } finally {
+            inFlight.forEach(chunk -> chunk.cancel(false));
+            FileProcessor.flush(writer);
+        }
+        return report;
+    }
+
+    private CompletableFuture<PathChunk> evaluate(Graph graph, FileChannel channel, long start, long end) {
+        if (executor == null)
+            return CompletableFuture.completedFuture(new PathChunk(graph, channel, start, end));
+
+        return CompletableFuture.supplyAsync(() -> new PathChunk(graph, channel, start, end), executor);
+    }
+
+    private static PathReport merge(PathReport report, PathReport chunk) {
+        return report == null ? chunk : report.merge(chunk);
+    }
+
+    /**
+     * Waits for the oldest chunk in flight and writes latencies of its paths.
+     */
+    private static PathReport writeChunk(Deque<CompletableFuture<PathChunk>> inFlight, PathResultWriter writer)
+            throws IOException {
+        PathChunk chunk = FileProcessor.join(inFlight.poll());
+        writer.write(chunk.latencies, chunk.size);
+        return chunk.report;
+    }
+
+    /**
+     * Latencies and summary of one chunk of paths.
+     */
+    private static final class PathChunk {
+        private final long[] latencies;
+        private final int size;
+        private final PathReport report;
+
+        private PathChunk(Graph graph, FileChannel channel, long start, long end) {
+            PathBatch batch = new PathBatch(graph);
+            byte[] bytes = read(channel, start, end);
+            int lineStart = 0;
+            for (int i = 0; i <= bytes.length; i++) {
+                if (i == bytes.length || bytes[i] == '\n' || bytes[i] == '\r') {
+                    if (i > lineStart)
+                        batch.add(bytes, lineStart, i);
+                    lineStart = i + 1;
+                }
+            }
+            size = batch.size();
+            latencies = new long[size];
+            report = graph.traceLatencies(batch, latencies);
+        }
+
+        private static byte[] read(FileChannel channel, long start, long end) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+            try {
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, start + buffer.position()) < 0)
+                        throw new EOFException("File ended before byte " + end);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return buffer.array();
+        }
+    }
+}
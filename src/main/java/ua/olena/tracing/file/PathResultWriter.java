@@ -0,0 +1,61 @@
+package ua.olena.tracing.file;
+
+import ua.olena.tracing.graph.Graph;
+import ua.olena.tracing.graph.PathReport;
+import ua.olena.tracing.graph.Query;
+import ua.olena.tracing.graph.QueryPlan;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes latency of every evaluated path on its own line and the summary of all paths at the end.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+final class PathResultWriter extends BufferedResultWriter {
+    private static final byte[] MISSING = bytes(QueryPlan.format(Query.Type.LATENCY, Graph.NO_TRACE));
+
+    PathResultWriter(OutputStream output) {
+        super(output, List.of());
+    }
+
+    @Override
+    public void write(long[] latencies) throws IOException {
+        write(latencies, latencies.length);
+    }
+
+    /**
+     * @param latencies latencies of the paths
+     * @param size number of paths to write
+     */
+    void write(long[] latencies, int size) throws IOException {
+        for (int i = 0; i < size; i++) {
+            if (latencies[i] == Graph.NO_TRACE)
+                put(MISSING);
+            else
+                put(latencies[i]);
+            put(LINE_SEPARATOR);
+        }
+    }
+
+    void writeSummary(PathReport report) throws IOException {
+        put(bytes("Paths: "));
+        put(report.getPaths());
+        put(bytes(", missing: "));
+        put(report.getMissingPaths());
+        put(bytes(", missing edges: "));
+        put(report.getMissingEdges());
+        put(bytes(", unknown services: "));
+        put(report.getUnknownServices());
+        put(LINE_SEPARATOR);
+        for (Map.Entry<String, Long> edge : report.getMissingEdgeCounts().entrySet()) {
+            put(bytes("Missing edge " + edge.getKey() + ": "));
+            put(edge.getValue());
+            put(LINE_SEPARATOR);
+        }
+    }
+}
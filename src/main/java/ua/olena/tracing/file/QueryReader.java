@@ -0,0 +1,106 @@
+package ua.olena.tracing.file;
+
+import ua.olena.tracing.graph.Condition;
+import ua.olena.tracing.graph.Query;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads queries from a file, one query per line. Empty lines and lines starting with # are skipped.
+ * <pre>
+ * latency A-B-C
+ * stops C C max 3
+ * stops A C exact 4
+ * shortest A C
+ * budget C C 30
+ * </pre>
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+public class QueryReader {
+
+    /**
+     * Reads all queries from the file.
+     *
+     * @param path Full path to the file
+     * @return queries in the order of lines
+     */
+    public List<Query> readQueries(String path) {
+        Path file = FileProcessor.existing(path);
+
+        try {
+            return parseQueries(Files.readAllLines(file, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Unable to read file with path: " + path, e);
+        }
+    }
+
+    /**
+     * Parses queries, one per line.
+     *
+     * @param lines lines with queries, empty lines and comments
+     * @return queries in the order of lines
+     */
+    public List<Query> parseQueries(List<String> lines) {
+        List<Query> queries = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (!line.isEmpty() && !line.startsWith("#"))
+                queries.add(parse(line, i + 1));
+        }
+        return queries;
+    }
+
+    /**
+     * Parses one query like "stops C C max 3".
+     *
+     * @param line query
+     * @param number number of the line for error messages
+     * @return parsed query
+     */
+    Query parse(String line, int number) {
+        String[] words = line.split("\\s+");
+        try {
+            switch (words[0]) {
+                case "latency":
+                    if (words.length == 2)
+                        return Query.latency(words[1]);
+                    break;
+                case "stops":
+                    if (words.length == 5)
+                        return Query.stops(words[1], words[2], Integer.parseInt(words[4]), condition(words[3]));
+                    break;
+                case "shortest":
+                    if (words.length == 3)
+                        return Query.shortest(words[1], words[2]);
+                    break;
+                case "budget":
+                    if (words.length == 4)
+                        return Query.budget(words[1], words[2], Integer.parseInt(words[3]));
+                    break;
+                default:
+                    break;
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Wrong query at line " + number + ": " + line, e);
+        }
+        throw new IllegalArgumentException("Wrong query at line " + number + ": " + line);
+    }
+
+    private static Condition condition(String word) {
+        switch (word) {
+            case "max":
+                return Condition.MAX_STOPS;
+            case "exact":
+                return Condition.EXACT_STOPS;
+            default:
+                throw new IllegalArgumentException("Unknown condition " + word);
+        }
+    }
+}
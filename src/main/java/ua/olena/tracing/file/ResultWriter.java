@@ -0,0 +1,20 @@
+package ua.olena.tracing.file;
+
+import java.io.Flushable;
+import java.io.IOException;
+
+/**
+ * Writes results of the queries for every line of traces. Results are buffered and written in batches, so they
+ * are only guaranteed to be written after {@link #flush()}.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+public interface ResultWriter extends Flushable {
+
+    /**
+     * @param results results of the queries for one line as returned by
+     * {@link ua.olena.tracing.graph.QueryPlan#evaluate}
+     */
+    void write(long[] results) throws IOException;
+}
@@ -0,0 +1,122 @@
+package ua.olena.tracing.file;
+
+import ua.olena.tracing.graph.Graph;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Adds all spans of a span log, one span like 4bf92f35,auth-svc,billing-svc,12 per line, into a graph. The file is
+ * split into chunks of bytes at line breaks, every chunk is parsed by a {@link SpanLogReader} into a graph of its
+ * own, in parallel if the ingester has an executor, and these graphs are merged into the provided one in the order
+ * of chunks with all the statistics of their connections. No more chunks than the limit are parsed but not merged
+ * yet, so the memory of the partial graphs does not grow with the file.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+public class SpanLogIngester {
+    private static final long CHUNK_BYTES = 1 << 26;
+
+    private final Executor executor;
+    private final int maxChunksInFlight;
+
+    /**
+     * Creates ingester that parses chunks in the calling thread.
+     */
+    public SpanLogIngester() {
+        this(null, 1);
+    }
+
+    /**
+     * @param executor executor to parse chunks or null to parse them in the calling thread
+     * @param maxChunksInFlight maximal number of chunks parsed but not merged yet
+     */
+    public SpanLogIngester(Executor executor, int maxChunksInFlight) {
+        if (maxChunksInFlight < 1)
+            throw new IllegalArgumentException("Number of chunks in flight must be positive: " + maxChunksInFlight);
+        this.executor = executor;
+        this.maxChunksInFlight = maxChunksInFlight;
+    }
+
+    /**
+     * Adds all spans of the span log into the graph, in chunks of 64 MB.
+     *
+     * @see #ingest(String, Graph, long)
+     */
+    public List<ChunkReport> ingest(String path, Graph graph) {
+        return ingest(path, graph, CHUNK_BYTES);
+    }
+
+    /**
+     * Adds all spans of the span log into the graph. Spans that do not follow the format are skipped and counted in
+     * the report of their chunk.
+     *
+     * @param path Full path to the span log
+     * @param graph graph to add connections to
+     * @param chunkBytes size of the chunks, a chunk is longer by up to one line
+     * @return throughput and errors of every chunk in the order of the file
+     */
+    public List<ChunkReport> ingest(String path, Graph graph, long chunkBytes) {
+        if (chunkBytes < 1)
+            throw new IllegalArgumentException("Size of chunks must be positive: " + chunkBytes);
+
+        Path file = FileProcessor.existing(path);
+        Deque<CompletableFuture<SpanChunk>> inFlight = new ArrayDeque<>();
+        List<ChunkReport> reports = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] bounds = SpanLogReader.split(channel, chunkBytes);
+            for (int i = 0; i < bounds.length - 1; i++) {
+                if (inFlight.size() == maxChunksInFlight)
+                    reports.add(mergeChunk(inFlight, graph));
+                int index = i;
+                if (executor == null)
+                    inFlight.add(CompletableFuture.completedFuture(new SpanChunk(channel, path, index, bounds)));
+                else
+                    inFlight.add(CompletableFuture.supplyAsync(() -> new SpanChunk(channel, path, index, bounds),
+                            executor));
+            }
+            while (!inFlight.isEmpty())
+                reports.add(mergeChunk(inFlight, graph));
+        } catch (IOException | UncheckedIOException e) {
+            throw new IllegalArgumentException("Unable to read file with path: " + path, e);
+        } finally {
+            inFlight.forEach(chunk -> chunk.cancel(false));
+        }
+        return reports;
+    }
+
+    /**
+     * Waits for the oldest chunk in flight and merges its connections into the graph.
+     */
+    private static ChunkReport mergeChunk(Deque<CompletableFuture<SpanChunk>> inFlight, Graph graph) {
+        SpanChunk chunk = FileProcessor.join(inFlight.poll());
+        graph.addAll(chunk.graph);
+        return chunk.report;
+    }
+
+    /**
+     * Connections and report of one chunk of a span log.
+     */
+    private static final class SpanChunk {
+        private final Graph graph = new Graph();
+        private final ChunkReport report;
+
+        private SpanChunk(FileChannel channel, String path, int index, long[] bounds) {
+            try {
+                report = new SpanLogReader(channel, path).read(index, bounds[index], bounds[index + 1], graph);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package ua.olena.tracing.file;
+
+import ua.olena.tracing.graph.Graph;
+import ua.olena.tracing.monitoring.IngestionEvent;
+import ua.olena.tracing.monitoring.TracingMetrics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads one chunk of a span log into a graph of its own. Every line is a span like
+ * 4bf92f35,auth-svc,billing-svc,12: id of the trace, parent service, child service and duration separated by commas
+ * with optional whitespace around them. The parent is empty for root spans, they are counted but add no connection.
+ * Names of services may contain letters, digits, '_', '-' and '.'. Lines that do not follow the format are counted
+ * and skipped, so one wrong span does not stop reading of the whole log. Empty lines are skipped.
+ * <p>
+ * The chunk is read by positional reads of the shared channel into a buffer of the reader, so chunks of the same
+ * file are read by many threads at once, each with its own reader.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+final class SpanLogReader {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int SPLIT_BUFFER_SIZE = 1 << 12;
+    private static final int FIELDS = 4;
+
+    private final NameCache names = new NameCache();
+    private final int[] separators = new int[FIELDS - 1];
+    private final FileChannel channel;
+    private final String path;
+    private byte[] line = new byte[128];
+    private int length;
+    private long spans;
+    private long edges;
+    private long errors;
+    private String firstError;
+
+    SpanLogReader(FileChannel channel, String path) {
+        this.channel = channel;
+        this.path = path;
+    }
+
+    /**
+     * Splits the file into chunks of about the provided size that start at the beginning of a line. A chunk ends
+     * at the first line break after its size, so it is longer than the size by up to one line.
+     *
+     * @return offsets of the chunks followed by the size of the file, one chunk of an empty file
+     */
+    static long[] split(FileChannel channel, long chunkBytes) throws IOException {
+        long size = channel.size();
+        long[] bounds = new long[16];
+        int count = 1;
+        ByteBuffer buffer = ByteBuffer.allocate(SPLIT_BUFFER_SIZE);
+        for (long position = chunkBytes; position < size; ) {
+            long boundary = nextLine(channel, position - 1, buffer);
+            if (boundary >= size)
+                break;
+            if (count + 1 == bounds.length)
+                bounds = Arrays.copyOf(bounds, count * 2);
+            bounds[count++] = boundary;
+            position = boundary + chunkBytes;
+        }
+        bounds[count++] = size;
+
+        return Arrays.copyOf(bounds, count);
+    }
+
+    /**
+     * @return offset after the first line break at or after the position, size of the file if there is none
+     */
+    private static long nextLine(FileChannel channel, long position, ByteBuffer buffer) throws IOException {
+        while (true) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read < 0)
+                return channel.size();
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n')
+                    return position + i + 1;
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * Reads spans of the chunk into the graph. Reports the chunk to {@link TracingMetrics} and as an
+     * {@link IngestionEvent} of the file.
+     *
+     * @param index number of the chunk
+     * @param start offset of the first byte of the chunk
+     * @param end offset of the byte after the chunk
+     * @param graph graph for the connections of the chunk
+     * @return throughput and errors of the chunk
+     */
+    ChunkReport read(int index, long start, long end, Graph graph) throws IOException {
+        IngestionEvent event = new IngestionEvent();
+        event.begin();
+        long begin = System.nanoTime();
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        byte[] bytes = buffer.array();
+        long lineStart = start;
+        long position = start;
+        while (position < end) {
+            buffer.clear().limit((int) Math.min(BUFFER_SIZE, end - position));
+            int read = channel.read(buffer, position);
+            if (read < 0)
+                break;
+            for (int i = 0; i < read; i++) {
+                byte b = bytes[i];
+                if (b == '\n' || b == '\r') {
+                    endLine(graph, lineStart);
+                    lineStart = position + i + 1;
+                } else {
+                    append(b);
+                }
+            }
+            position += read;
+        }
+        endLine(graph, lineStart);
+
+        long nanos = System.nanoTime() - begin;
+        TracingMetrics.recordIngestion(nanos, spans + errors, edges, errors);
+        event.end();
+        if (event.shouldCommit()) {
+            double seconds = Math.max(nanos, 1) / 1e9;
+            event.path = path + "#" + index;
+            event.lines = spans + errors;
+            event.edges = edges;
+            event.failures = errors;
+            event.linesPerSecond = (spans + errors) / seconds;
+            event.edgesPerSecond = edges / seconds;
+            event.commit();
+        }
+        return new ChunkReport(index, start, end, spans, edges, errors, firstError, nanos);
+    }
+
+    private void append(byte b) {
+        if (length == line.length)
+            line = Arrays.copyOf(line, length * 2);
+        line[length++] = b;
+    }
+
+    private void endLine(Graph graph, long offset) {
+        if (skipWhitespace(0, length) == length) {
+            length = 0;
+            return;
+        }
+
+        if (addSpan(graph))
+            spans++;
+        else if (errors++ == 0)
+            firstError = "Span at byte " + offset + " does not follow format of traceId,parent,child,duration "
+                    + new String(line, 0, length, StandardCharsets.UTF_8);
+        length = 0;
+    }
+
+    /**
+     * @return false if the line does not follow the format
+     */
+    private boolean addSpan(Graph graph) {
+        int fields = 1;
+        for (int i = 0; i < length; i++) {
+            if (line[i] == ',') {
+                if (fields == FIELDS)
+                    return false;
+                separators[fields++ - 1] = i;
+            }
+        }
+        if (fields < FIELDS)
+            return false;
+
+        int traceStart = skipWhitespace(0, separators[0]);
+        int parentStart = skipWhitespace(separators[0] + 1, separators[1]);
+        int parentEnd = trimWhitespace(parentStart, separators[1]);
+        int childStart = skipWhitespace(separators[1] + 1, separators[2]);
+        int childEnd = trimWhitespace(childStart, separators[2]);
+        int durationStart = skipWhitespace(separators[2] + 1, length);
+        int duration = parseDuration(durationStart, trimWhitespace(durationStart, length));
+        if (traceStart == separators[0] || childStart == childEnd || duration < 0
+                || !isName(parentStart, parentEnd) || !isName(childStart, childEnd))
+            return false;
+
+        if (parentStart < parentEnd) {
+            graph.addEdge(names.get(line, parentStart, parentEnd), names.get(line, childStart, childEnd), duration);
+            edges++;
+        }
+        return true;
+    }
+
+    /**
+     * @return duration or -1 if it is not a non-negative int
+     */
+    private int parseDuration(int start, int end) {
+        if (start == end)
+            return -1;
+
+        int duration = 0;
+        for (int i = start; i < end; i++) {
+            if (line[i] < '0' || line[i] > '9')
+                return -1;
+            int digit = line[i] - '0';
+            if (duration > (Integer.MAX_VALUE - digit) / 10)
+                return -1;
+            duration = duration * 10 + digit;
+        }
+
+        return duration;
+    }
+
+    private boolean isName(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!TraceReader.isWordChar(line[i]) && line[i] != '-' && line[i] != '.')
+                return false;
+        }
+
+        return true;
+    }
+
+    private int skipWhitespace(int start, int end) {
+        while (start < end && TraceReader.isWhitespace(line[start]))
+            start++;
+
+        return start;
+    }
+
+    private int trimWhitespace(int start, int end) {
+        while (end > start && TraceReader.isWhitespace(line[end - 1]))
+            end--;
+
+        return end;
+    }
+}
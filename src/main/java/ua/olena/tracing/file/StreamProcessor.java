@@ -0,0 +1,66 @@
+package ua.olena.tracing.file;
+
+import ua.olena.tracing.graph.Query;
+import ua.olena.tracing.graph.QueryPlan;
+import ua.olena.tracing.graph.SlidingWindowGraph;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.time.Clock;
+import java.util.List;
+
+import static java.lang.System.out;
+
+/**
+ * Reads lines of timestamped traces like AB5@1697040000123 as a stream into a sliding window and prints answers to
+ * the queries about the connections in the window after every line, e.g. for traces piped into the application
+ * while they are recorded. Before answering the window is moved to the current time if it is newer than the traces
+ * read, so connections leave the window while the stream is quiet.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+public class StreamProcessor {
+    private static final String STANDARD_INPUT = "-";
+
+    private final QueryPlan plan;
+    private final OutputFormat format;
+    private final Clock clock;
+
+    /**
+     * @param queries queries to answer or null for the default ten
+     * @param format format of the results
+     */
+    public StreamProcessor(List<Query> queries, OutputFormat format) {
+        this(queries, format, Clock.systemUTC());
+    }
+
+    /**
+     * @param clock current time the window is moved to before answering
+     */
+    public StreamProcessor(List<Query> queries, OutputFormat format, Clock clock) {
+        this.plan = new QueryPlan(queries != null ? queries : FileProcessor.DEFAULT_QUERIES);
+        this.format = format;
+        this.clock = clock;
+    }
+
+    /**
+     * @param path Full path to the file or "-" for the standard input
+     * @param window graph of the last observed connections
+     */
+    public boolean process(String path, SlidingWindowGraph window) {
+        ResultWriter writer = format.writer(out, plan.getQueries());
+        try (TraceReader reader = STANDARD_INPUT.equals(path)
+                ? new TraceReader(Channels.newChannel(System.in))
+                : new TraceReader(FileProcessor.existing(path))) {
+            while (reader.next(window)) {
+                window.advanceTo(clock.millis());
+                FileProcessor.write(writer, plan.evaluate(window.snapshot()));
+                FileProcessor.flush(writer);
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Unable to read file with path: " + path, e);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,29 @@
+package ua.olena.tracing.file;
+
+import ua.olena.tracing.graph.Query;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Writes every result on its own line and an empty line after the results of every line of traces.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+final class TextResultWriter extends BufferedResultWriter {
+
+    TextResultWriter(OutputStream output, List<Query> queries) {
+        super(output, queries);
+    }
+
+    @Override
+    public void write(long[] results) throws IOException {
+        for (int i = 0; i < results.length; i++) {
+            putResult(i, results[i]);
+            put(LINE_SEPARATOR);
+        }
+        put(LINE_SEPARATOR);
+    }
+}
@@ -0,0 +1,323 @@
+package ua.olena.tracing.file;
+
+import ua.olena.tracing.graph.EdgeSink;
+import ua.olena.tracing.graph.Graph;
+import ua.olena.tracing.monitoring.IngestionEvent;
+import ua.olena.tracing.monitoring.TracingMetrics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Streams the file through a buffered channel and tokenizes bytes of every line directly into a graph, so neither
+ * the file nor a whole line is kept in memory. Lines are separated by line breaks, traces by commas with optional
+ * whitespace around them, each trace has format LetterLetterNumber like AB5 or from&gt;to:Number like
+ * auth-svc&gt;billing-svc:12. Names of services may contain letters, digits, '_', '-' and '.'. A trace may end with
+ * the time it was observed at in milliseconds since the epoch, like AB5@1697040000123, which is passed to the sink.
+ * <p>
+ * Besides files any channel can be read, e.g. the body of a request.
+ * <p>
+ * Numbers of lines, traces and wrong lines are counted while reading and reported to {@link TracingMetrics} and
+ * as an {@link IngestionEvent} when the reader is closed.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+public class TraceReader implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final NameCache names = new NameCache();
+    private final ReadableByteChannel channel;
+    private final String path;
+    private final IngestionEvent event = new IngestionEvent();
+    private final long start = System.nanoTime();
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).flip();
+    private byte[] token = new byte[32];
+    private int length;
+    private int emptyTokens;
+    private int separators;
+    private boolean afterSeparator;
+    private boolean afterCarriageReturn;
+    private boolean finished;
+    private long lines;
+    private long edges;
+    private long failures;
+
+    public TraceReader(Path path) throws IOException {
+        this(FileChannel.open(path, StandardOpenOption.READ), path.toString());
+    }
+
+    public TraceReader(ReadableByteChannel channel) {
+        this(channel, null);
+    }
+
+    private TraceReader(ReadableByteChannel channel, String path) {
+        this.channel = channel;
+        this.path = path;
+        event.begin();
+    }
+
+    /**
+     * Reads next line of the file and builds a graph from it.
+     *
+     * @return graph or null if there are no more lines
+     * @throws IllegalArgumentException if one of the traces does not follow the format
+     */
+    public Graph next() throws IOException {
+        Graph graph = new Graph();
+        return next(graph::addEdge) ? graph : null;
+    }
+
+    /**
+     * Reads next line of the file and passes its traces to the sink.
+     *
+     * @param sink sink for the traces of the line
+     * @return false if there are no more lines
+     * @throws IllegalArgumentException if one of the traces does not follow the format
+     */
+    public boolean next(EdgeSink sink) throws IOException {
+        if (finished)
+            return false;
+
+        try {
+            boolean read = readLine(sink);
+            if (read)
+                lines++;
+            return read;
+        } catch (IllegalArgumentException e) {
+            failures++;
+            throw e;
+        }
+    }
+
+    private boolean readLine(EdgeSink sink) throws IOException {
+        boolean lineStarted = false;
+        length = 0;
+        emptyTokens = 0;
+        separators = 0;
+        afterSeparator = false;
+        while (true) {
+            if (!buffer.hasRemaining() && !fill()) {
+                finished = true;
+                if (!lineStarted)
+                    return false;
+                endLine(sink);
+                return true;
+            }
+
+            byte b = buffer.get();
+            if (afterCarriageReturn) {
+                afterCarriageReturn = false;
+                if (b == '\n')
+                    continue;
+            }
+            lineStarted = true;
+            if (b == '\n' || b == '\r') {
+                afterCarriageReturn = b == '\r';
+                endLine(sink);
+                return true;
+            } else if (b == ',') {
+                while (length > 0 && isWhitespace(token[length - 1]))
+                    length--;
+                endToken(sink);
+                separators++;
+                afterSeparator = true;
+            } else if (!afterSeparator || !isWhitespace(b)) {
+                afterSeparator = false;
+                append(b);
+            }
+        }
+    }
+
+    public long getLines() {
+        return lines;
+    }
+
+    public long getEdges() {
+        return edges;
+    }
+
+    /**
+     * @return number of lines with traces that do not follow the format
+     */
+    public long getFailures() {
+        return failures;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+        long nanos = System.nanoTime() - start;
+        TracingMetrics.recordIngestion(nanos, lines, edges, failures);
+        event.end();
+        if (event.shouldCommit()) {
+            double seconds = Math.max(nanos, 1) / 1e9;
+            event.path = path;
+            event.lines = lines;
+            event.edges = edges;
+            event.failures = failures;
+            event.linesPerSecond = lines / seconds;
+            event.edgesPerSecond = edges / seconds;
+            event.commit();
+        }
+    }
+
+    private boolean fill() throws IOException {
+        buffer.clear();
+        int read = channel.read(buffer);
+        while (read == 0)
+            read = channel.read(buffer);
+        buffer.flip();
+
+        return read > 0;
+    }
+
+    private void append(byte b) {
+        if (length == token.length)
+            token = Arrays.copyOf(token, length * 2);
+        token[length++] = b;
+    }
+
+    /**
+     * Empty traces are dropped at the end of the line only, the same way String.split does it.
+     */
+    private void endLine(EdgeSink sink) {
+        if (length == 0 && separators == 0)
+            throw invalidTrace(0);
+        if (length > 0)
+            endToken(sink);
+    }
+
+    private void endToken(EdgeSink sink) {
+        if (length == 0) {
+            emptyTokens++;
+            return;
+        }
+        if (emptyTokens > 0)
+            throw invalidTrace(0);
+
+        int separator = indexOf('>');
+        if (separator >= 0)
+            addNamedTrace(sink, separator);
+        else
+            addShortTrace(sink);
+        length = 0;
+    }
+
+    /**
+     * Adds trace like AB5.
+     */
+    private void addShortTrace(EdgeSink sink) {
+        int end = timestampSeparator();
+        if (end < 3 || !isWordChar(token[0]) || !isWordChar(token[1]))
+            throw invalidTrace(length);
+        addEdge(sink, names.get(token, 0, 1), names.get(token, 1, 2), parseLatency(2, end), end);
+    }
+
+    /**
+     * Adds trace like auth-svc&gt;billing-svc:12.
+     */
+    private void addNamedTrace(EdgeSink sink, int separator) {
+        int colon = indexOf(':');
+        int end = timestampSeparator();
+        if (separator == 0 || colon <= separator + 1 || colon >= end - 1
+                || !isName(0, separator) || !isName(separator + 1, colon))
+            throw invalidTrace(length);
+        addEdge(sink, names.get(token, 0, separator), names.get(token, separator + 1, colon),
+                parseLatency(colon + 1, end), end);
+    }
+
+    /**
+     * Passes the trace to the sink with the timestamp following the latency after '@' if there is one.
+     */
+    private void addEdge(EdgeSink sink, String from, String to, int latency, int end) {
+        if (end < length)
+            sink.addEdge(from, to, latency, parseTimestamp(end + 1));
+        else
+            sink.addEdge(from, to, latency);
+        edges++;
+    }
+
+    /**
+     * @return index of '@' separating the timestamp or length of the token if there is no timestamp
+     */
+    private int timestampSeparator() {
+        int at = indexOf('@');
+        return at < 0 ? length : at;
+    }
+
+    private int parseLatency(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (token[i] < '0' || token[i] > '9')
+                throw invalidTrace(length);
+        }
+
+        int latency = 0;
+        for (int i = start; i < end; i++) {
+            int digit = token[i] - '0';
+            if (latency > (Integer.MAX_VALUE - digit) / 10)
+                throw new NumberFormatException("For input string: \"" + text(start, end) + "\"");
+            latency = latency * 10 + digit;
+        }
+
+        return latency;
+    }
+
+    private long parseTimestamp(int start) {
+        if (start == length)
+            throw invalidTrace(length);
+        long timestamp = 0;
+        for (int i = start; i < length; i++) {
+            if (token[i] < '0' || token[i] > '9')
+                throw invalidTrace(length);
+            int digit = token[i] - '0';
+            if (timestamp > (Long.MAX_VALUE - digit) / 10)
+                throw new NumberFormatException("For input string: \"" + text(start, length) + "\"");
+            timestamp = timestamp * 10 + digit;
+        }
+
+        return timestamp;
+    }
+
+    private int indexOf(char c) {
+        for (int i = 0; i < length; i++) {
+            if (token[i] == c)
+                return i;
+        }
+
+        return -1;
+    }
+
+    private boolean isName(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!isWordChar(token[i]) && token[i] != '-' && token[i] != '.')
+                return false;
+        }
+
+        return true;
+    }
+
+    private IllegalArgumentException invalidTrace(int length) {
+        return new IllegalArgumentException("One of the traces does not follow format of LetterLetterNumber "
+                + text(0, length));
+    }
+
+    private String text(int from, int to) {
+        return new String(token, from, to - from, StandardCharsets.UTF_8);
+    }
+
+    static boolean isWordChar(byte b) {
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9') || b == '_';
+    }
+
+    static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == 0x0B || b == '\f' || b == '\r';
+    }
+}
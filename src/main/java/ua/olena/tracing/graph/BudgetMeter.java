@@ -0,0 +1,163 @@
+package ua.olena.tracing.graph;
+
+import jdk.jfr.EventType;
+import ua.olena.tracing.monitoring.QueryEvent;
+import ua.olena.tracing.monitoring.TracingMetrics;
+
+/**
+ * Counts work of one query and tells the query to stop once its budget runs out. The clock and the cancellation
+ * token are only checked every {@link #CHECK_INTERVAL} nodes, so the check costs an increment and a comparison
+ * per node.
+ * <p>
+ * When the query is monitored by {@link TracingMetrics} or a recording of {@link QueryEvent} the meter also counts
+ * relaxed edges and the depth of the search and reports them when the query finishes. Queries without a budget
+ * that are not monitored share {@link #UNLIMITED} that does not count anything.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+final class BudgetMeter {
+    static final BudgetMeter UNLIMITED = new BudgetMeter(QueryBudget.unlimited(), false);
+    private static final int CHECK_INTERVAL = 1024;
+    private static final EventType QUERY_EVENT = EventType.getEventType(QueryEvent.class);
+
+    private final long maxExpandedNodes;
+    private final long deadline;
+    private final boolean timed;
+    private final CancellationToken token;
+    private final boolean monitored;
+    private final long start;
+    private final QueryEvent event;
+    private long expanded;
+    private long relaxed;
+    private int maxDepth;
+    private QueryResult.Status status = QueryResult.Status.COMPLETE;
+
+    BudgetMeter(QueryBudget budget) {
+        this(budget, isMonitored());
+    }
+
+    private BudgetMeter(QueryBudget budget, boolean monitored) {
+        maxExpandedNodes = budget.getMaxExpandedNodes();
+        timed = budget.getTimeoutNanos() > 0;
+        deadline = System.nanoTime() + budget.getTimeoutNanos();
+        token = budget.getToken();
+        this.monitored = monitored;
+        start = monitored ? System.nanoTime() : 0;
+        event = monitored ? new QueryEvent() : null;
+        if (event != null)
+            event.begin();
+    }
+
+    /**
+     * @return meter for a query without a budget, {@link #UNLIMITED} unless queries are monitored
+     */
+    static BudgetMeter start() {
+        return isMonitored() ? new BudgetMeter(QueryBudget.unlimited(), true) : UNLIMITED;
+    }
+
+    private static boolean isMonitored() {
+        return TracingMetrics.isEnabled() || QUERY_EVENT.isEnabled();
+    }
+
+    /**
+     * Counts one more expanded node.
+     *
+     * @param edges number of edges followed from the node
+     * @return false if the budget ran out and the query must stop
+     */
+    boolean expand(int edges) {
+        if (this == UNLIMITED)
+            return true;
+        if (status != QueryResult.Status.COMPLETE)
+            return false;
+
+        relaxed += edges;
+        if (++expanded > maxExpandedNodes)
+            status = QueryResult.Status.NODES_EXCEEDED;
+        else if ((expanded & (CHECK_INTERVAL - 1)) == 1)
+            checkLimits();
+
+        return status == QueryResult.Status.COMPLETE;
+    }
+
+    /**
+     * Counts nodes expanded by the threads of a pool, e.g. a layer of dynamic programming counted in parallel. The
+     * budget is not checked: queries counted in parallel have none.
+     *
+     * @param nodes number of nodes expanded
+     * @param edges number of edges followed from them
+     */
+    void expand(long nodes, long edges) {
+        if (this == UNLIMITED)
+            return;
+
+        expanded += nodes;
+        relaxed += edges;
+    }
+
+    /**
+     * Checks the clock and the cancellation token without counting a node, e.g. once per row of dynamic programming
+     * that may not expand any node at all.
+     *
+     * @return false if the budget ran out and the query must stop
+     */
+    boolean check() {
+        if (this == UNLIMITED)
+            return true;
+        if (status == QueryResult.Status.COMPLETE)
+            checkLimits();
+
+        return status == QueryResult.Status.COMPLETE;
+    }
+
+    private void checkLimits() {
+        if (token != null && token.isCancelled())
+            status = QueryResult.Status.CANCELLED;
+        else if (timed && System.nanoTime() - deadline > 0)
+            status = QueryResult.Status.TIME_EXCEEDED;
+    }
+
+    /**
+     * Remembers the depth the search reached.
+     */
+    void depth(int depth) {
+        if (depth > maxDepth && this != UNLIMITED)
+            maxDepth = depth;
+    }
+
+    boolean isExceeded() {
+        return status != QueryResult.Status.COMPLETE;
+    }
+
+    QueryResult result(long value) {
+        return new QueryResult(value, status, expanded);
+    }
+
+    /**
+     * Reports the finished query if it is monitored.
+     *
+     * @param type type of the query, PLAN for a whole query plan
+     * @param from service the query starts from or null
+     * @param to service the query ends at or null
+     * @param result number of traces, latency of the shortest trace or number of queries in the plan
+     */
+    void finish(String type, String from, String to, long result) {
+        if (!monitored)
+            return;
+
+        TracingMetrics.recordQuery(System.nanoTime() - start, expanded, relaxed);
+        event.end();
+        if (event.shouldCommit()) {
+            event.type = type;
+            event.from = from;
+            event.to = to;
+            event.verticesExpanded = expanded;
+            event.edgesRelaxed = relaxed;
+            event.maxDepth = maxDepth;
+            event.result = result;
+            event.status = status.name();
+            event.commit();
+        }
+    }
+}
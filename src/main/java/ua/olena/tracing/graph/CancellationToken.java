@@ -0,0 +1,19 @@
+package ua.olena.tracing.graph;
+
+/**
+ * Lets another thread stop queries running with a {@link QueryBudget} that uses this token.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+public final class CancellationToken {
+    private volatile boolean cancelled;
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
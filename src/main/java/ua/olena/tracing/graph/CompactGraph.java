@@ -0,0 +1,216 @@
+package ua.olena.tracing.graph;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Frozen form of the Graph. Services are replaced by dense int ids and connections are kept in compressed sparse
+ * rows: outgoing edges of the vertex {@code v} are stored in {@code targets} and {@code latencies} between
+ * {@code offsets[v]} and {@code offsets[v + 1]}, sorted by target id. Queries run on these arrays without building
+ * strings or boxing.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+final class CompactGraph {
+    static final int NO_EDGE = -1;
+
+    private final SymbolTable symbols;
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] latencies;
+    private volatile Reachability reachability;
+    private volatile ZeroLatencyOrder zeroLatencyOrder;
+
+    CompactGraph(SymbolTable symbols, int[] offsets, int[] targets, int[] latencies) {
+        this.symbols = symbols;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.latencies = latencies;
+    }
+
+    /**
+     * Builds compressed rows from the list of edges with a counting sort by source vertex.
+     *
+     * @param symbols symbol table of the graph, shared with the graph
+     * @param edges edges between vertexes from the symbol table
+     * @param statistic statistic of the observed latencies used as latency of the edges
+     */
+    static CompactGraph of(SymbolTable symbols, List<Edge> edges, Statistic statistic) {
+        int size = symbols.size();
+        int[] offsets = new int[size + 1];
+        for (Edge edge : edges)
+            offsets[edge.getFrom() + 1]++;
+        for (int vertex = 0; vertex < size; vertex++)
+            offsets[vertex + 1] += offsets[vertex];
+
+        int[] next = Arrays.copyOf(offsets, size);
+        long[] row = new long[edges.size()];
+        for (Edge edge : edges)
+            row[next[edge.getFrom()]++] = (long) edge.getTo() << 32 | (edge.getLatency(statistic) & 0xFFFFFFFFL);
+        for (int vertex = 0; vertex < size; vertex++)
+            Arrays.sort(row, offsets[vertex], offsets[vertex + 1]);
+
+        int[] targets = new int[row.length];
+        int[] latencies = new int[row.length];
+        for (int i = 0; i < row.length; i++) {
+            targets[i] = (int) (row[i] >>> 32);
+            latencies[i] = (int) row[i];
+        }
+
+        return new CompactGraph(symbols, offsets, targets, latencies);
+    }
+
+    SymbolTable symbols() {
+        return symbols;
+    }
+
+    int[] offsets() {
+        return offsets;
+    }
+
+    int[] targets() {
+        return targets;
+    }
+
+    int[] latencies() {
+        return latencies;
+    }
+
+    /**
+     * @return reverse connections and components of the graph, built on first use
+     */
+    Reachability reachability() {
+        Reachability result = reachability;
+        if (result == null)
+            reachability = result = Reachability.of(this);
+
+        return result;
+    }
+
+    /**
+     * @return order of vertexes along connections with zero latency, built on first use
+     */
+    ZeroLatencyOrder zeroLatencyOrder() {
+        ZeroLatencyOrder result = zeroLatencyOrder;
+        if (result == null)
+            zeroLatencyOrder = result = ZeroLatencyOrder.of(this);
+
+        return result;
+    }
+
+    int vertexCount() {
+        return offsets.length - 1;
+    }
+
+    int edgeCount() {
+        return targets.length;
+    }
+
+    int firstEdge(int vertex) {
+        return offsets[vertex];
+    }
+
+    int lastEdge(int vertex) {
+        return offsets[vertex + 1];
+    }
+
+    int target(int edge) {
+        return targets[edge];
+    }
+
+    int edgeLatency(int edge) {
+        return latencies[edge];
+    }
+
+    /**
+     * Latency of the connection between two services.
+     *
+     * @param from id of the service connection is opened from
+     * @param to id of the service it is accessing
+     * @return latency or {@link #NO_EDGE} if services are not connected
+     */
+    int latency(int from, int to) {
+        int edge = edge(from, to);
+        return edge == NO_EDGE ? NO_EDGE : latencies[edge];
+    }
+
+    /**
+     * Number of the connection between two services.
+     *
+     * @return number of the edge or {@link #NO_EDGE} if services are not connected
+     */
+    int edge(int from, int to) {
+        int low = offsets[from];
+        int high = offsets[from + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int target = targets[mid];
+            if (target < to)
+                low = mid + 1;
+            else if (target > to)
+                high = mid - 1;
+            else
+                return mid;
+        }
+
+        return NO_EDGE;
+    }
+
+    /**
+     * Counts walks with at least one hop and total latency less than provided number, stops when the budget runs
+     * out. Every step of a walk is an expanded node, walks found so far are counted if the budget runs out. Walks
+     * are not continued into vertexes the destination can not be reached from within the budget.
+     *
+     * @throws ArithmeticException if a walk can go around a cycle of connections with zero latency and still reach
+     * the destination within the budget, the number of traces is infinite then
+     */
+    long countUnderLatency(int from, int to, int maxLatency, BudgetMeter meter) {
+        int[] deadlines = reachability().latencyDeadlines(new int[]{to}, new int[]{maxLatency});
+        ZeroLatencyOrder zeroLatency = zeroLatencyOrder();
+        int[] path = new int[16];
+        int[] cursor = new int[16];
+        int[] latency = new int[16];
+        long traceNumber = 0;
+        int depth = 0;
+        path[0] = from;
+        cursor[0] = offsets[from];
+        while (depth >= 0) {
+            int node = path[depth];
+            if (cursor[depth] < offsets[node + 1]) {
+                int edge = cursor[depth]++;
+                int next = targets[edge];
+                long total = (long) latency[depth] + latencies[edge];
+                if (total >= deadlines[next])
+                    continue;
+                if (zeroLatency.isCyclic(next))
+                    throw infiniteTraces(next);
+                if (next == to && total < maxLatency)
+                    traceNumber = Math.addExact(traceNumber, 1);
+                if (!meter.expand(1))
+                    return traceNumber;
+                if (++depth == path.length) {
+                    path = Arrays.copyOf(path, depth * 2);
+                    cursor = Arrays.copyOf(cursor, depth * 2);
+                    latency = Arrays.copyOf(latency, depth * 2);
+                }
+                path[depth] = next;
+                cursor[depth] = offsets[next];
+                latency[depth] = (int) total;
+                meter.depth(depth);
+            } else {
+                depth--;
+            }
+        }
+
+        return traceNumber;
+    }
+
+    /**
+     * @return error for a count of traces that is infinite because they reach a cycle with zero latency at the vertex
+     */
+    ArithmeticException infiniteTraces(int vertex) {
+        return new ArithmeticException("Infinite number of traces through a cycle with zero latency at "
+                + symbols.name(vertex));
+    }
+}
@@ -0,0 +1,145 @@
+package ua.olena.tracing.graph;
+
+/**
+ * Graph that many threads add edges to at once while other threads query it.
+ * <p>
+ * Writers are spread over stripes by the pair of services, every stripe is a graph of its own guarded by its own
+ * lock, so writers only wait for each other when they add the same connection or connections falling into the same
+ * stripe. Queries never touch the stripes: {@link #publish()} merges the stripes into a read-only compact graph
+ * and publishes it with the next epoch, {@link #snapshot()} returns the last published graph without any locking.
+ * A snapshot never changes, so all queries against it see the same connections and latencies.
+ * <p>
+ * Every stripe keeps an immutable copy of its connections made by the last publishing. Publishing replaces the
+ * copies of the stripes changed since then, each under the lock of its stripe only, and merges the copies without
+ * holding any lock, so writers of a stripe wait for the copy of that stripe alone. Every edge added before
+ * {@link #publish()} was called is in the snapshot it publishes. Edges added while it runs may be in it or not
+ * depending on whether their stripe was copied yet, so a snapshot is a point-in-time view of every stripe but not
+ * of the whole graph. Publishing still merges all connections, so it is meant to be called periodically rather
+ * than after every edge.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+public class ConcurrentGraph implements EdgeSink {
+    private static final int DEFAULT_STRIPES = 64;
+
+    private final Stripe[] stripes;
+    private final Statistic statistic;
+    private volatile Graph snapshot;
+    private volatile long epoch;
+
+    public ConcurrentGraph() {
+        this(DEFAULT_STRIPES, Statistic.MEAN);
+    }
+
+    /**
+     * @param stripes number of independently locked parts edges are spread over, rounded up to a power of two
+     * @param statistic statistic of the observed latencies that queries use as latency of a connection
+     */
+    public ConcurrentGraph(int stripes, Statistic statistic) {
+        if (stripes < 1)
+            throw new IllegalArgumentException("Number of stripes must be positive: " + stripes);
+
+        int size = Integer.highestOneBit(stripes);
+        this.stripes = new Stripe[size < stripes ? size * 2 : size];
+        for (int i = 0; i < this.stripes.length; i++)
+            this.stripes[i] = new Stripe(statistic);
+        this.statistic = statistic;
+        this.snapshot = merge();
+    }
+
+    /**
+     * Adds observed latency of a connection, can be called from any thread.
+     */
+    @Override
+    public void addEdge(String from, String to, int latency) {
+        Stripe stripe = stripes[stripe(from, to)];
+        synchronized (stripe) {
+            stripe.graph.addEdge(from, to, latency);
+            stripe.changed = true;
+        }
+    }
+
+    /**
+     * Adds all connections of the graph with all their observed latencies, e.g. a graph built from another part
+     * of the traces or loaded from a snapshot. The graph must not be changed by other threads meanwhile. Connections
+     * are added one by one, a snapshot published meanwhile may have only a part of them.
+     *
+     * @throws IllegalStateException if the graph was loaded from a snapshot with latencies by another statistic
+     */
+    public void addGraph(Graph graph) {
+        if (graph.loadedStatistic() != null)
+            Graph.checkStatistic(graph.loadedStatistic(), statistic);
+        for (Edge edge : graph.edges()) {
+            String from = graph.name(edge.getFrom());
+            String to = graph.name(edge.getTo());
+            Stripe stripe = stripes[stripe(from, to)];
+            synchronized (stripe) {
+                stripe.graph.addEdge(from, to, edge);
+                stripe.changed = true;
+            }
+        }
+    }
+
+    /**
+     * Publishes a snapshot with all edges added so far.
+     *
+     * @return epoch of the published snapshot
+     */
+    public synchronized long publish() {
+        Graph merged = merge();
+        snapshot = merged;
+        return ++epoch;
+    }
+
+    /**
+     * @return read-only graph published last, it is empty until the first {@link #publish()}
+     */
+    public Graph snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * @return number of snapshots published so far
+     */
+    public long getEpoch() {
+        return epoch;
+    }
+
+    private Graph merge() {
+        Graph merged = new Graph().useStatistic(statistic);
+        for (Stripe stripe : stripes)
+            merged.addAll(stripe.view());
+
+        return merged.readOnly();
+    }
+
+    private int stripe(String from, String to) {
+        int hash = from.hashCode() * 31 + to.hashCode();
+        return (hash ^ (hash >>> 16)) & (stripes.length - 1);
+    }
+
+    /**
+     * Part of the connections with its own lock and the copy of them made by the last publishing.
+     */
+    private static final class Stripe {
+        private final Graph graph;
+        private Graph view;
+        private boolean changed = true;
+
+        private Stripe(Statistic statistic) {
+            graph = new Graph().useStatistic(statistic);
+        }
+
+        /**
+         * @return copy of the connections of the stripe, made again only if the stripe changed since the last copy
+         */
+        private synchronized Graph view() {
+            if (changed) {
+                view = new Graph().useStatistic(graph.statistic()).addAll(graph);
+                changed = false;
+            }
+            return view;
+        }
+    }
+}
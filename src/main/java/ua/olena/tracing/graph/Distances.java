@@ -0,0 +1,31 @@
+package ua.olena.tracing.graph;
+
+/**
+ * Minimal latencies from one service to every service of the graph, calculated by a single shortest path run.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+public final class Distances {
+    private final SymbolTable symbols;
+    private final long[] distances;
+
+    Distances(SymbolTable symbols, long[] distances) {
+        this.symbols = symbols;
+        this.distances = distances;
+    }
+
+    /**
+     * Length of the shortest trace to the service. The trace to the source itself contains at least one hop.
+     *
+     * @param to Node to finish at
+     * @return Minimal latency of the path or 0 if there is no such path
+     */
+    public Integer get(String to) {
+        int id = symbols.find(to);
+        if (id == SymbolTable.NOT_FOUND || id >= distances.length || distances[id] == ShortestPaths.UNREACHABLE)
+            return 0;
+
+        return Math.toIntExact(distances[id]);
+    }
+}
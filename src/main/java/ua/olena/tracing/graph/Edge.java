@@ -1,26 +1,115 @@
 package ua.olena.tracing.graph;
 
 /**
- * Represents connections between services with their latencies.
+ * Represents connections between services with their latencies. Services are referenced by their ids
+ * in the symbol table of the graph. Every observed latency is aggregated into count, sum, minimum, maximum
+ * and a histogram for percentiles, so memory does not grow with the number of observations.
  *
  * @author Olena Openko
  * 16.10.2020
  */
 class Edge {
-    private String key;
-    private int latency;
+    private final int from;
+    private final int to;
+    private long count;
+    private long sum;
+    private int min;
+    private int max;
+    private LatencyHistogram histogram;
 
-    public Edge(String key, int latency) {
-        this.key = key;
-        this.latency = latency;
+    Edge(int from, int to, int latency) {
+        this.from = from;
+        this.to = to;
+        this.count = 1;
+        this.sum = latency;
+        this.min = latency;
+        this.max = latency;
     }
 
-    public String getKey() {
-        return key;
+    /**
+     * Creates copy of the other connection with all its latencies for services with other ids.
+     */
+    Edge(int from, int to, Edge other) {
+        this.from = from;
+        this.to = to;
+        this.count = other.count;
+        this.sum = other.sum;
+        this.min = other.min;
+        this.max = other.max;
+        if (other.histogram != null) {
+            histogram = new LatencyHistogram();
+            histogram.merge(other.histogram);
+        }
     }
 
-    public int getLatency() {
-        return latency;
+    int getFrom() {
+        return from;
+    }
+
+    int getTo() {
+        return to;
+    }
+
+    long getCount() {
+        return count;
+    }
+
+    /**
+     * Adds one more observed latency. The histogram is only created when the second latency is observed.
+     */
+    void add(int latency) {
+        if (histogram == null) {
+            histogram = new LatencyHistogram();
+            histogram.add(min);
+        }
+        histogram.add(latency);
+        count++;
+        sum += latency;
+        min = Math.min(min, latency);
+        max = Math.max(max, latency);
     }
-}
 
+    /**
+     * Adds all latencies observed for the same connection elsewhere, e.g. in another part of the same traces.
+     */
+    void merge(Edge other) {
+        if (histogram == null) {
+            histogram = new LatencyHistogram();
+            histogram.add(min);
+        }
+        if (other.histogram == null)
+            histogram.add(other.min);
+        else
+            histogram.merge(other.histogram);
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * @param statistic statistic of the observed latencies
+     * @return latency of the connection by the statistic, the mean is rounded to the nearest int
+     */
+    int getLatency(Statistic statistic) {
+        switch (statistic) {
+            case MIN:
+                return min;
+            case MAX:
+                return max;
+            case P50:
+                return percentile(0.5);
+            case P99:
+                return percentile(0.99);
+            default:
+                return (int) Math.round((double) sum / count);
+        }
+    }
+
+    private int percentile(double percentile) {
+        if (histogram == null)
+            return min;
+
+        return Math.max(min, Math.min(max, histogram.percentile(percentile, count)));
+    }
+}
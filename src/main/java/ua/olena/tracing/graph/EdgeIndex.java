@@ -0,0 +1,114 @@
+package ua.olena.tracing.graph;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing map from a pair of vertex ids to the number of the edge between them, so finding an edge
+ * does not need a string key or boxing.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+final class EdgeIndex {
+    static final int NOT_FOUND = -1;
+
+    private long[] keys = new long[32];
+    private int[] values = new int[32];
+    private int size;
+
+    EdgeIndex() {
+        Arrays.fill(values, NOT_FOUND);
+    }
+
+    int get(int from, int to) {
+        long key = key(from, to);
+        int mask = keys.length - 1;
+        for (int slot = slot(key, mask); values[slot] != NOT_FOUND; slot = (slot + 1) & mask) {
+            if (keys[slot] == key)
+                return values[slot];
+        }
+
+        return NOT_FOUND;
+    }
+
+    /**
+     * Stores the number of the edge if there is no edge between these vertexes yet.
+     *
+     * @return number of the existing edge or {@link #NOT_FOUND} if the new one was stored
+     */
+    int putIfAbsent(int from, int to, int edge) {
+        long key = key(from, to);
+        int mask = keys.length - 1;
+        int slot = slot(key, mask);
+        for (; values[slot] != NOT_FOUND; slot = (slot + 1) & mask) {
+            if (keys[slot] == key)
+                return values[slot];
+        }
+        keys[slot] = key;
+        values[slot] = edge;
+        if (++size * 2 > keys.length)
+            rehash();
+
+        return NOT_FOUND;
+    }
+
+    /**
+     * Removes the edge between these vertexes, moving the following entries of its run back into the free slot.
+     *
+     * @return number of the removed edge or {@link #NOT_FOUND} if there is none
+     */
+    int remove(int from, int to) {
+        long key = key(from, to);
+        int mask = keys.length - 1;
+        int slot = slot(key, mask);
+        while (values[slot] != NOT_FOUND && keys[slot] != key)
+            slot = (slot + 1) & mask;
+        int edge = values[slot];
+        if (edge == NOT_FOUND)
+            return NOT_FOUND;
+
+        for (int next = (slot + 1) & mask; values[next] != NOT_FOUND; next = (next + 1) & mask) {
+            // an entry can only move back to a slot between its own slot and its current one
+            if (((next - slot(keys[next], mask)) & mask) >= ((next - slot) & mask)) {
+                keys[slot] = keys[next];
+                values[slot] = values[next];
+                slot = next;
+            }
+        }
+        values[slot] = NOT_FOUND;
+        size--;
+
+        return edge;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        Arrays.fill(values, NOT_FOUND);
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] == NOT_FOUND)
+                continue;
+            int slot = slot(oldKeys[i], mask);
+            while (values[slot] != NOT_FOUND)
+                slot = (slot + 1) & mask;
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+
+    private static long key(int from, int to) {
+        return (long) from << 32 | (to & 0xFFFFFFFFL);
+    }
+
+    private static int slot(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & mask;
+    }
+}
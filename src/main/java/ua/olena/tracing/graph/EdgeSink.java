@@ -0,0 +1,30 @@
+package ua.olena.tracing.graph;
+
+/**
+ * Receives observed connections between services, e.g. from a reader of traces.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+@FunctionalInterface
+public interface EdgeSink {
+
+    /**
+     * @param from service connection was opened from
+     * @param to service it is accessing
+     * @param latency observed latency of the connection
+     */
+    void addEdge(String from, String to, int latency);
+
+    /**
+     * Adds connection observed at the time, sinks that do not track time ignore it.
+     *
+     * @param from service connection was opened from
+     * @param to service it is accessing
+     * @param latency observed latency of the connection
+     * @param timestamp time of the observation in milliseconds since the epoch
+     */
+    default void addEdge(String from, String to, int latency, long timestamp) {
+        addEdge(from, to, latency);
+    }
+}
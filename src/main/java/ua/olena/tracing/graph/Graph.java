@@ -1,10 +1,11 @@
 package ua.olena.tracing.graph;
 
-import java.util.ArrayDeque;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Queue;
-import java.util.Stack;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Builds graph with Vertexes that are service names, Edges that represent connections between two services.
@@ -14,45 +15,431 @@ import java.util.Stack;
  * 13.10.2020
  */
 public class Graph {
-    private static final String ERROR_MSG = "NO SUCH TRACE";
-    private Map<String, Vertex> vertexes = new HashMap<>();
-    private Map<String, Edge> edges = new HashMap<>();
+    /**
+     * Result of the primitive queries if there is no such trace.
+     */
+    public static final long NO_TRACE = -1;
+    static final String NO_TRACE_MSG = "NO SUCH TRACE";
+    private static final char TRACE_SEPARATOR = '>';
+    private static final char SHORT_TRACE_SEPARATOR = '-';
+    private final SymbolTable symbols;
+    private final EdgeIndex edgeIndex = new EdgeIndex();
+    private final List<Edge> edges = new ArrayList<>();
+    private boolean edgesLoaded;
+    private CompactGraph compact;
+    private QueryCache cache;
+    private ShortestTraceIndex index;
+    private Statistic statistic = Statistic.MEAN;
+    private Statistic loadedStatistic;
+    private long version;
+    private boolean readOnly;
+
+    public Graph() {
+        symbols = new SymbolTable();
+        edgesLoaded = true;
+    }
 
+    /**
+     * Creates graph from its compact form, e.g. loaded from a snapshot. Edges are only created from the compact
+     * form when the graph is changed, each with its latency as the only observation.
+     *
+     * @param statistic statistic the latencies of the compact form were calculated with, the only one the graph
+     * can use
+     */
+    Graph(CompactGraph compact, Statistic statistic) {
+        this.symbols = compact.symbols();
+        this.compact = compact;
+        this.statistic = statistic;
+        this.loadedStatistic = statistic;
+    }
+
+    /**
+     * Adds one observed latency of the connection.
+     *
+     * @throws IllegalArgumentException if the latency is negative
+     */
     public void addEdge(String from, String to, Integer latency) {
-        Vertex vertexFrom = vertexes.getOrDefault(from, new Vertex(from));
-        Vertex vertexTo = vertexes.getOrDefault(to, new Vertex(to));
-        vertexFrom.getNeighbors().put(to, vertexTo);
-        vertexes.putIfAbsent(from, vertexFrom);
-        vertexes.putIfAbsent(to, vertexTo);
+        if (latency < 0)
+            throw new IllegalArgumentException("Latency must not be negative: " + from + "-" + to + " " + latency);
+        checkWritable();
+        if (!edgesLoaded)
+            loadEdges();
+        int fromId = symbols.intern(from);
+        int toId = symbols.intern(to);
+        int edge = edgeIndex.putIfAbsent(fromId, toId, edges.size());
+        if (edge == EdgeIndex.NOT_FOUND)
+            edges.add(new Edge(fromId, toId, latency));
+        else
+            edges.get(edge).add(latency);
+        changed();
+    }
+
+    /**
+     * Adds all latencies observed in the other graph, keeping count, sum, minimum, maximum and histogram of every
+     * connection, so merging graphs built from parts of the same traces gives the same statistics as one graph
+     * built from all of them. The other graph must not change meanwhile.
+     *
+     * @param other graph to add
+     * @return this graph
+     * @throws IllegalStateException if the other graph was loaded from a snapshot with latencies by another
+     * statistic than this graph uses
+     */
+    public Graph addAll(Graph other) {
+        checkWritable();
+        if (other.loadedStatistic != null) {
+            checkStatistic(other.loadedStatistic, statistic);
+            loadedStatistic = other.loadedStatistic;
+        }
+        if (!edgesLoaded)
+            loadEdges();
+        for (Edge edge : other.edges())
+            merge(other.symbols.name(edge.getFrom()), other.symbols.name(edge.getTo()), edge);
+        changed();
+        return this;
+    }
+
+    /**
+     * Adds all latencies of a connection of another graph, keeping its statistics as {@link #addAll(Graph)} does.
+     */
+    void addEdge(String from, String to, Edge edge) {
+        checkWritable();
+        if (!edgesLoaded)
+            loadEdges();
+        merge(from, to, edge);
+        changed();
+    }
+
+    private void merge(String from, String to, Edge edge) {
+        int fromId = symbols.intern(from);
+        int toId = symbols.intern(to);
+        int index = edgeIndex.putIfAbsent(fromId, toId, edges.size());
+        if (index == EdgeIndex.NOT_FOUND)
+            edges.add(new Edge(fromId, toId, edge));
+        else
+            edges.get(index).merge(edge);
+    }
+
+    /**
+     * Chooses statistic of the observed latencies that queries use as latency of a connection.
+     *
+     * @param statistic statistic, mean by default
+     * @return this graph
+     * @throws IllegalStateException if the graph was loaded from a snapshot with latencies by another statistic,
+     * other statistics of them are not known
+     */
+    public Graph useStatistic(Statistic statistic) {
+        if (this.statistic != statistic) {
+            checkWritable();
+            if (loadedStatistic != null)
+                checkStatistic(loadedStatistic, statistic);
+            if (!edgesLoaded)
+                loadEdges();
+            this.statistic = statistic;
+            changed();
+        }
+        return this;
+    }
+
+    static void checkStatistic(Statistic loaded, Statistic statistic) {
+        if (loaded != statistic)
+            throw new IllegalStateException("Latencies loaded from a snapshot are only known by " + loaded
+                    + ", not by " + statistic);
+    }
+
+    /**
+     * @return statistic of the observed latencies that queries use
+     */
+    Statistic statistic() {
+        return statistic;
+    }
+
+    /**
+     * @return statistic of the latencies loaded from a snapshot, null if all latencies were observed
+     */
+    Statistic loadedStatistic() {
+        return loadedStatistic;
+    }
+
+    String name(int id) {
+        return symbols.name(id);
+    }
+
+    private void changed() {
+        compact = null;
+        index = null;
+        version++;
+    }
+
+    /**
+     * Forbids any further changes of the graph, so it can be queried from many threads at once.
+     */
+    Graph readOnly() {
+        freeze();
+        readOnly = true;
+        return this;
+    }
+
+    private void checkWritable() {
+        if (readOnly)
+            throw new IllegalStateException("Graph snapshot can not be changed");
+    }
+
+    /**
+     * @return edges of this graph, created from its compact form for a read-only graph without changing it
+     */
+    List<Edge> edges() {
+        if (edgesLoaded)
+            return edges;
+
+        List<Edge> loaded = new ArrayList<>();
+        for (int from = 0; from < compact.vertexCount(); from++) {
+            for (int edge = compact.firstEdge(from); edge < compact.lastEdge(from); edge++)
+                loaded.add(new Edge(from, compact.target(edge), compact.edgeLatency(edge)));
+        }
+        return loaded;
+    }
 
-        edges.putIfAbsent(from + to, new Edge(from + to, latency));
+    private void loadEdges() {
+        for (Edge edge : edges()) {
+            edgeIndex.putIfAbsent(edge.getFrom(), edge.getTo(), edges.size());
+            edges.add(edge);
+        }
+        edgesLoaded = true;
     }
 
     /**
-     * Calculates average latency for the path like A-B-C for the provided graph.
+     * Turns on caching of query results, least recently used results are evicted when the cache is full.
+     *
+     * @param maxEntries maximal number of cached results
+     * @return this graph
+     */
+    public Graph enableCache(int maxEntries) {
+        checkWritable();
+        cache = new QueryCache(maxEntries);
+        return this;
+    }
+
+    /**
+     * @return number of queries answered from the cache
+     */
+    public long getCacheHits() {
+        return cache == null ? 0 : cache.getHits();
+    }
+
+    /**
+     * @return number of queries that were calculated and put into the cache
+     */
+    public long getCacheMisses() {
+        return cache == null ? 0 : cache.getMisses();
+    }
+
+    /**
+     * Converts the graph into its compact form, should be called after all edges were added.
+     *
+     * @return this graph
+     */
+    public Graph freeze() {
+        if (compact == null)
+            compact = CompactGraph.of(symbols, edges, statistic);
+
+        return this;
+    }
+
+    CompactGraph compact() {
+        return freeze().compact;
+    }
+
+    /**
+     * Calculates shortest traces between all pairs of services in the common fork-join pool.
+     *
+     * @return this graph
+     */
+    public Graph buildShortestTraceIndex() {
+        return buildShortestTraceIndex(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Calculates shortest traces between all pairs of services, one shortest path run per service in parallel.
+     * The index takes 4 bytes per pair of services and is dropped when the graph changes.
+     *
+     * @param pool pool to run the calculation in
+     * @return this graph
+     * @throws IllegalArgumentException if the graph is too big for the index
+     */
+    public Graph buildShortestTraceIndex(ForkJoinPool pool) {
+        checkWritable();
+        index = ShortestTraceIndex.build(compact(), pool);
+        return this;
+    }
+
+    ShortestTraceIndex shortestTraceIndex() {
+        return index;
+    }
+
+    /**
+     * Calculates average latency for the path like A-B-C for the provided graph. Services with dashes in their
+     * names are separated by '>' instead, like auth-svc>billing-svc.
      *
      * @param vertexes String path
      * @return number if there was such path or "NO SUCH TRACE" if there was none
      */
     public String getAverageLatency(String vertexes) {
-        int idx = 0;
-        int latency = 0;
-
-        while (idx + 2 < vertexes.length()) {
-            String from = vertexes.substring(idx, idx + 1);
-            String to = vertexes.substring(idx + 2, idx + 3);
-
-            Edge edge = edges.get(from + to);
-            if (edge != null) {
-                latency = latency + edge.getLatency();
-            } else {
-                return ERROR_MSG;
+        if (cache != null)
+            return cache.get(Query.latency(vertexes), version, () -> calculateAverageLatency(vertexes));
+
+        return calculateAverageLatency(vertexes);
+    }
+
+    private String calculateAverageLatency(String vertexes) {
+        long latency = traceLatency(vertexes);
+        return latency == NO_TRACE ? NO_TRACE_MSG : String.valueOf(latency);
+    }
+
+    /**
+     * Calculates latency of the path like A-B-C or auth-svc&gt;billing-svc without formatting the result.
+     *
+     * @param vertexes String path
+     * @return latency or {@link #NO_TRACE} if there was no such path, 0 for a single service
+     */
+    public long traceLatency(String vertexes) {
+        CompactGraph graph = compact();
+        char separator = vertexes.indexOf(TRACE_SEPARATOR) >= 0 ? TRACE_SEPARATOR : SHORT_TRACE_SEPARATOR;
+        int end = vertexes.indexOf(separator);
+        if (end < 0)
+            return 0;
+        int from = symbols.find(vertexes, 0, end);
+        long latency = 0;
+
+        while (end < vertexes.length()) {
+            int start = end + 1;
+            end = vertexes.indexOf(separator, start);
+            if (end < 0)
+                end = vertexes.length();
+            int to = symbols.find(vertexes, start, end);
+
+            int edge = from == SymbolTable.NOT_FOUND || to == SymbolTable.NOT_FOUND
+                    ? CompactGraph.NO_EDGE
+                    : graph.latency(from, to);
+            if (edge == CompactGraph.NO_EDGE)
+                return NO_TRACE;
+            latency += edge;
+            from = to;
+        }
+
+        return latency;
+    }
+
+    /**
+     * Calculates latency of the path of service ids.
+     *
+     * @param path ids of the services
+     * @return latency or {@link #NO_TRACE} if there was no such path, 0 for a single service
+     */
+    public long traceLatency(int[] path) {
+        CompactGraph graph = compact();
+        long latency = 0;
+        for (int i = 1; i < path.length; i++) {
+            int edge = contains(graph, path[i - 1]) && contains(graph, path[i])
+                    ? graph.latency(path[i - 1], path[i])
+                    : CompactGraph.NO_EDGE;
+            if (edge == CompactGraph.NO_EDGE)
+                return NO_TRACE;
+            latency += edge;
+        }
+
+        return latency;
+    }
+
+    /**
+     * Calculates latencies of all paths of the batch. Unlike {@link #traceLatency(int[])} every hop of a path is
+     * checked, so the report counts all missing connections of the path, not only the first one.
+     *
+     * @param paths paths encoded for this graph
+     * @param latencies array to store latency of every path to, {@link #NO_TRACE} if the path can not be followed
+     * @return summary of the paths
+     */
+    public PathReport traceLatencies(PathBatch paths, long[] latencies) {
+        CompactGraph graph = compact();
+        PathReport report = new PathReport(graph.symbols());
+        for (int path = 0; path < paths.size(); path++) {
+            long latency = 0;
+            boolean missing = false;
+            for (int i = paths.start(path) + 1; i < paths.end(path); i++) {
+                int from = paths.service(i - 1);
+                int to = paths.service(i);
+                if (!contains(graph, from) || !contains(graph, to)) {
+                    report.unknownService();
+                    missing = true;
+                    continue;
+                }
+                int edge = graph.latency(from, to);
+                if (edge == CompactGraph.NO_EDGE) {
+                    report.missingEdge(from, to);
+                    missing = true;
+                } else {
+                    latency += edge;
+                }
             }
+            latencies[path] = missing ? NO_TRACE : latency;
+            report.path(missing);
+        }
+
+        return report;
+    }
 
-            idx = idx + 2;
+    /**
+     * @param name service name
+     * @return id of the service used by the primitive queries or -1 if there is no such service
+     */
+    public int getServiceId(String name) {
+        return symbols.find(name);
+    }
+
+    /**
+     * @param id id of the service
+     * @return service name
+     * @throws IllegalArgumentException if there is no service with such id
+     */
+    public String getServiceName(int id) {
+        if (id < 0 || id >= symbols.size())
+            throw new IllegalArgumentException("No service with id " + id);
+
+        return symbols.name(id);
+    }
+
+    /**
+     * Resolves path like A-B-C or auth-svc&gt;billing-svc into service ids once, e.g. to query it many times.
+     *
+     * @param vertexes String path
+     * @return ids of the services, -1 for unknown services
+     */
+    public int[] getPath(String vertexes) {
+        char separator = vertexes.indexOf(TRACE_SEPARATOR) >= 0 ? TRACE_SEPARATOR : SHORT_TRACE_SEPARATOR;
+        int size = 1;
+        for (int i = 0; i < vertexes.length(); i++) {
+            if (vertexes.charAt(i) == separator)
+                size++;
         }
 
-        return String.valueOf(latency);
+        int[] path = new int[size];
+        int start = 0;
+        for (int i = 0; i < size; i++) {
+            int end = vertexes.indexOf(separator, start);
+            if (end < 0)
+                end = vertexes.length();
+            path[i] = symbols.find(vertexes, start, end);
+            start = end + 1;
+        }
+
+        return path;
+    }
+
+    private static boolean contains(CompactGraph graph, int id) {
+        return id >= 0 && id < graph.vertexCount();
+    }
+
+    private static String name(CompactGraph graph, int id) {
+        return contains(graph, id) ? graph.symbols().name(id) : null;
     }
 
     /**
@@ -63,34 +450,104 @@ public class Graph {
      * @param stops Number of stops like 2 For A-B-C
      * @param condition Maximum or Exact
      * @return number of traces
+     * @throws ArithmeticException if the number of traces does not fit into int
      */
     public Integer getTracesByStops(String from, String to, Integer stops, Condition condition) {
-        int traceNumber = 0;
-        int depth = 0;
-
-        Stack<String> visited = new Stack<>();
-        Stack<String> stack = new Stack<>();
-        Stack<Integer> depthStack = new Stack<>();
-        stack.push(from);
-        depthStack.push(depth);
-        while (!stack.isEmpty()) {
-            String node = stack.pop();
-            depth = depthStack.pop() + 1;
-            visited.add(node);
-            Vertex vertex = vertexes.get(node);
-            Map<String, Vertex> neighbors = vertex.getNeighbors();
-
-            if (depth != stops + 1) {
-                pushNeighborsToStack(depth, stack, depthStack, neighbors);
-            } else {
-                goBack(visited, depthStack);
-            }
+        return Math.toIntExact(countTracesByStops(from, to, stops, condition));
+    }
 
-            if (isReachedDestination(node, to, depth, stops, condition))
-                traceNumber++;
-        }
+    /**
+     * Calculates how many traces there are between two services with maximum/exact number of stops. Unlike
+     * {@link #getTracesByStops(String, String, Integer, Condition)} supports numbers of traces up to Long.MAX_VALUE.
+     *
+     * @param from Node to start from
+     * @param to Node to finish on
+     * @param stops Number of stops like 2 For A-B-C
+     * @param condition Maximum or Exact
+     * @return number of traces
+     * @throws ArithmeticException if the number of traces does not fit into long
+     */
+    public long countTracesByStops(String from, String to, int stops, Condition condition) {
+        if (cache != null)
+            return cache.get(Query.stops(from, to, stops, condition), version,
+                    () -> calculateTracesByStops(from, to, stops, condition, BudgetMeter.start()));
+
+        return calculateTracesByStops(from, to, stops, condition, BudgetMeter.start());
+    }
+
+    /**
+     * Calculates how many traces there are between two services with maximum/exact number of stops within the
+     * budget. Results are not cached.
+     *
+     * @param from Node to start from
+     * @param to Node to finish on
+     * @param stops Number of stops like 2 For A-B-C
+     * @param condition Maximum or Exact
+     * @param budget limits of the work
+     * @return number of traces, the number found so far if the budget ran out
+     * @throws ArithmeticException if the number of traces does not fit into long
+     */
+    public QueryResult countTracesByStops(String from, String to, int stops, Condition condition,
+                                          QueryBudget budget) {
+        BudgetMeter meter = new BudgetMeter(budget);
+        return meter.result(calculateTracesByStops(from, to, stops, condition, meter));
+    }
+
+    /**
+     * Calculates how many traces there are between two services with maximum/exact number of stops with all
+     * threads of the pool, for queries too large for one thread. Results are the same as of the single-threaded
+     * query and are not cached.
+     *
+     * @param from Node to start from
+     * @param to Node to finish on
+     * @param stops Number of stops like 2 For A-B-C
+     * @param condition Maximum or Exact
+     * @param pool pool to count in
+     * @return number of traces
+     * @throws ArithmeticException if the number of traces does not fit into long
+     */
+    public long countTracesByStops(String from, String to, int stops, Condition condition, ForkJoinPool pool) {
+        CompactGraph graph = compact();
+        int fromId = graph.symbols().find(from);
+        int toId = graph.symbols().find(to);
+        BudgetMeter meter = BudgetMeter.start();
+        long traces = contains(graph, fromId) && contains(graph, toId)
+                ? ParallelCounter.countByStops(graph, fromId, toId, stops, condition, pool, meter)
+                : 0;
+        meter.finish(Query.Type.STOPS.name(), from, to, traces);
+
+        return traces;
+    }
 
-        return traceNumber;
+    /**
+     * Calculates how many traces there are between two services with maximum/exact number of stops.
+     *
+     * @param from id of the service to start from
+     * @param to id of the service to finish on
+     * @param stops Number of stops like 2 For A-B-C
+     * @param condition Maximum or Exact
+     * @return number of traces, 0 for unknown ids
+     * @throws ArithmeticException if the number of traces does not fit into long
+     */
+    public long countTracesByStops(int from, int to, int stops, Condition condition) {
+        return countTracesByStops(compact(), from, to, stops, condition, BudgetMeter.start());
+    }
+
+    private long calculateTracesByStops(String from, String to, int stops, Condition condition,
+                                        BudgetMeter meter) {
+        CompactGraph graph = compact();
+        return countTracesByStops(graph, graph.symbols().find(from), graph.symbols().find(to), stops, condition,
+                meter);
+    }
+
+    private long countTracesByStops(CompactGraph graph, int from, int to, int stops, Condition condition,
+                                    BudgetMeter meter) {
+        long traces = contains(graph, from) && contains(graph, to)
+                ? HopCounter.count(graph, from, to, stops, condition, meter)
+                : 0;
+        meter.finish(Query.Type.STOPS.name(), name(graph, from), name(graph, to), traces);
+
+        return traces;
     }
 
     /**
@@ -101,45 +558,92 @@ public class Graph {
      * @return Minimal latency of the path between two nodes
      */
     public Integer getShortestTrace(String from, String to) {
-        int minLatency = 0;
-        int depth = 0;
-
-        Stack<String> visited = new Stack<>();
-        Stack<String> stack = new Stack<>();
-        Stack<Integer> depthStack = new Stack<>();
-        stack.push(from);
-        depthStack.push(depth);
-        while (!stack.isEmpty()) {
-            String node = stack.pop();
-            depth = depthStack.pop() + 1;
-            visited.add(node);
-            Vertex vertex = vertexes.get(node);
-            Map<String, Vertex> neighbors = vertex.getNeighbors();
-
-            //If I'm going from C to C and I'm in C but this is starting point and not destination
-            if (!node.equals(to) || visited.size() == 1) {
-                for (String neighbor : neighbors.keySet()) {
-                    if (!visited.contains(neighbor) || (visited.contains(neighbor) && neighbor.equals(to))) {
-                        stack.push(neighbor);
-                        depthStack.push(depth);
-                    }
-                }
-            }
-            //If I reached the node that has no path to destination
-            if (neighbors.isEmpty() && !node.equals(to)) {
-                goBack(visited, depthStack);
-            }
-            //I reached destination
-            else if (node.equals(to) && visited.size() > 1) {
-                int averageLatency = getAverage(visited);
-                if (minLatency == 0 || minLatency > averageLatency)
-                    minLatency = averageLatency;
+        if (index != null) {
+            int fromId = symbols.find(from);
+            int toId = symbols.find(to);
+            if (fromId == SymbolTable.NOT_FOUND || toId == SymbolTable.NOT_FOUND)
+                return 0;
+            int latency = index.get(fromId, toId);
+            return latency == ShortestTraceIndex.UNREACHABLE ? 0 : latency;
+        }
+        if (cache != null)
+            return cache.get(Query.shortest(from, to), version,
+                    () -> calculateShortestTrace(from, to, BudgetMeter.start()));
 
-                goBack(visited, depthStack);
-            }
+        return calculateShortestTrace(from, to, BudgetMeter.start());
+    }
+
+    /**
+     * Get shortest trace between two nodes for provided graph within the budget. Results are not cached, the
+     * shortest trace index is used if it was built: the lookup is one expanded node, checked against the budget
+     * before it is done.
+     *
+     * @param from Node to start from
+     * @param to Node to finish at
+     * @param budget limits of the work
+     * @return Minimal latency of the path between two nodes, the shortest one found so far if the budget ran out
+     */
+    public QueryResult getShortestTrace(String from, String to, QueryBudget budget) {
+        BudgetMeter meter = new BudgetMeter(budget);
+        if (index != null)
+            return meter.result(meter.expand(0) ? getShortestTrace(from, to) : 0);
+
+        return meter.result(calculateShortestTrace(from, to, meter));
+    }
+
+    /**
+     * Get shortest trace between two services, the shortest trace index is used if it was built.
+     *
+     * @param from id of the service to start from
+     * @param to id of the service to finish at
+     * @return Minimal latency of the path between two services or {@link #NO_TRACE}
+     */
+    public long shortestTrace(int from, int to) {
+        CompactGraph graph = compact();
+        if (index != null) {
+            int latency = contains(graph, from) && contains(graph, to)
+                    ? index.get(from, to)
+                    : ShortestTraceIndex.UNREACHABLE;
+            return latency == ShortestTraceIndex.UNREACHABLE ? NO_TRACE : latency;
         }
 
-        return minLatency;
+        return shortestTrace(graph, from, to, BudgetMeter.start());
+    }
+
+    private Integer calculateShortestTrace(String from, String to, BudgetMeter meter) {
+        CompactGraph graph = compact();
+        long latency = shortestTrace(graph, graph.symbols().find(from), graph.symbols().find(to), meter);
+        return latency == NO_TRACE ? 0 : Math.toIntExact(latency);
+    }
+
+    private long shortestTrace(CompactGraph graph, int from, int to, BudgetMeter meter) {
+        long latency = contains(graph, from) && contains(graph, to)
+                ? ShortestPaths.between(graph, from, to, meter)
+                : ShortestPaths.UNREACHABLE;
+        long shortest = latency == ShortestPaths.UNREACHABLE ? NO_TRACE : latency;
+        meter.finish(Query.Type.SHORTEST.name(), name(graph, from), name(graph, to), shortest);
+
+        return shortest;
+    }
+
+    /**
+     * Get shortest traces from one node to all nodes of the graph with a single shortest path run.
+     *
+     * @param from Node to start from
+     * @return Minimal latencies of the paths to every node
+     */
+    public Distances getShortestTrace(String from) {
+        CompactGraph graph = compact();
+        int fromId = graph.symbols().find(from);
+        long[] distances = new long[graph.vertexCount()];
+        if (fromId == SymbolTable.NOT_FOUND)
+            Arrays.fill(distances, ShortestPaths.UNREACHABLE);
+        else if (index != null)
+            distances = index.row(fromId);
+        else
+            distances = ShortestPaths.from(graph, fromId);
+
+        return new Distances(graph.symbols(), distances);
     }
 
     /**
@@ -149,83 +653,157 @@ public class Graph {
      * @param to Destination node
      * @param maxLatency maximal latency allowed
      * @return Number of traces that are shorter than provided number
+     * @throws ArithmeticException if the number of traces does not fit into int
      */
     public Integer getShortestTraces(String from, String to, Integer maxLatency) {
-        int shortestTraces = 0;
-        int depth = 0;
-
-        Stack<String> visited = new Stack<>();
-        Stack<String> stack = new Stack<>();
-        Stack<Integer> depthStack = new Stack<>();
-        stack.push(from);
-        depthStack.push(depth);
-        while (!stack.isEmpty()) {
-            String node = stack.pop();
-            depth = depthStack.pop() + 1;
-            visited.add(node);
-            Vertex vertex = vertexes.get(node);
-            Map<String, Vertex> neighbors = vertex.getNeighbors();
-
-            int averageLatency = getAverage(visited);
-            if (averageLatency > maxLatency) {
-                goBack(visited, depthStack);
-            } else {
-                pushNeighborsToStack(depth, stack, depthStack, neighbors);
-
-                //If I reached the node that has no path to destination
-                if (neighbors.isEmpty() && !node.equals(to)) {
-                    goBack(visited, depthStack);
-                }
-                //I reached destination
-                else if (node.equals(to) && visited.size() > 1) {
-                    if (averageLatency < maxLatency)
-                        shortestTraces++;
+        return Math.toIntExact(countShortestTraces(from, to, maxLatency));
+    }
 
-                    goBack(visited, depthStack);
-                }
-            }
-        }
+    /**
+     * Get all traces that are shorter than provided number between two services. Unlike
+     * {@link #getShortestTraces(String, String, Integer)} supports numbers of traces up to Long.MAX_VALUE.
+     *
+     * @param from Node to start from
+     * @param to Destination node
+     * @param maxLatency maximal latency allowed
+     * @return Number of traces that are shorter than provided number
+     * @throws ArithmeticException if the number of traces does not fit into long
+     */
+    public long countShortestTraces(String from, String to, int maxLatency) {
+        if (cache != null)
+            return cache.get(Query.budget(from, to, maxLatency), version,
+                    () -> calculateShortestTraces(from, to, maxLatency, BudgetMeter.start()));
 
-        return shortestTraces;
+        return calculateShortestTraces(from, to, maxLatency, BudgetMeter.start());
     }
 
-    private void goBack(Stack<String> visited, Stack<Integer> depthStack) {
-        if (!depthStack.isEmpty()) {
-            int deltaDepth = depthStack.peek();
-            int backDepth = visited.size() - deltaDepth;
-            for (int i = 0; i < backDepth; i++)
-                visited.pop();
-        }
+    /**
+     * Get all traces that are shorter than provided number between two services within the budget. Results are not
+     * cached.
+     *
+     * @param from Node to start from
+     * @param to Destination node
+     * @param maxLatency maximal latency allowed
+     * @param budget limits of the work
+     * @return Number of traces that are shorter than provided number, the number found so far if the budget ran out
+     * @throws ArithmeticException if the number of traces does not fit into long
+     */
+    public QueryResult countShortestTraces(String from, String to, int maxLatency, QueryBudget budget) {
+        BudgetMeter meter = new BudgetMeter(budget);
+        return meter.result(calculateShortestTraces(from, to, maxLatency, meter));
     }
 
-    private int getAverage(Stack<String> visited) {
-        int average = 0;
-        Queue<String> queue = new ArrayDeque<>(visited);
-        String from = queue.poll();
-        while (!queue.isEmpty()) {
-            String to = queue.poll();
-            Edge edge = edges.get(from + to);
+    /**
+     * Get all traces that are shorter than provided number between two services with all threads of the pool, for
+     * queries too large for one thread. Results are the same as of the single-threaded query and are not cached.
+     *
+     * @param from Node to start from
+     * @param to Destination node
+     * @param maxLatency maximal latency allowed
+     * @param pool pool to count in
+     * @return Number of traces that are shorter than provided number
+     * @throws ArithmeticException if the number of traces does not fit into long
+     */
+    public long countShortestTraces(String from, String to, int maxLatency, ForkJoinPool pool) {
+        CompactGraph graph = compact();
+        int fromId = graph.symbols().find(from);
+        int toId = graph.symbols().find(to);
+        BudgetMeter meter = BudgetMeter.start();
+        long traces = contains(graph, fromId) && contains(graph, toId)
+                ? ParallelCounter.countUnderLatency(graph, fromId, toId, maxLatency, pool, meter)
+                : 0;
+        meter.finish(Query.Type.BUDGET.name(), from, to, traces);
+
+        return traces;
+    }
 
-            average = average + edge.getLatency();
+    /**
+     * Get all traces that are shorter than provided number between two services.
+     *
+     * @param from id of the service to start from
+     * @param to id of the destination service
+     * @param maxLatency maximal latency allowed
+     * @return Number of traces that are shorter than provided number, 0 for unknown ids
+     * @throws ArithmeticException if the number of traces does not fit into long
+     */
+    public long countShortestTraces(int from, int to, int maxLatency) {
+        return countShortestTraces(compact(), from, to, maxLatency, BudgetMeter.start());
+    }
 
-            from = to;
-        }
+    private long calculateShortestTraces(String from, String to, int maxLatency, BudgetMeter meter) {
+        CompactGraph graph = compact();
+        return countShortestTraces(graph, graph.symbols().find(from), graph.symbols().find(to), maxLatency, meter);
+    }
+
+    private long countShortestTraces(CompactGraph graph, int from, int to, int maxLatency, BudgetMeter meter) {
+        long traces = contains(graph, from) && contains(graph, to)
+                ? LatencyBudgetCounter.count(graph, from, to, maxLatency, meter)
+                : 0;
+        meter.finish(Query.Type.BUDGET.name(), name(graph, from), name(graph, to), traces);
 
-        return average;
+        return traces;
     }
 
-    private void pushNeighborsToStack(int depth, Stack<String> stack, Stack<Integer> depthStack, Map<String, Vertex> neighbors) {
-        for (String neighbor : neighbors.keySet()) {
-            stack.push(neighbor);
-            depthStack.push(depth);
-        }
+    /**
+     * Enumerates traces between two services with maximum/exact number of stops, the same traces
+     * {@link #countTracesByStops(String, String, int, Condition)} counts. Traces are found lazily while the stream
+     * is consumed, so it can be limited without enumerating all of them, and a parallel stream splits the search.
+     * The graph must not be changed while the stream is consumed.
+     *
+     * @param from Node to start from
+     * @param to Node to finish on
+     * @param stops Number of stops like 2 For A-B-C
+     * @param condition Maximum or Exact
+     * @return traces, the same reused object for every trace found by one thread, see {@link Trace}
+     */
+    public Stream<Trace> tracesByStops(String from, String to, int stops, Condition condition) {
+        return traces(from, to, condition == Condition.EXACT_STOPS ? stops : 1, stops, Long.MAX_VALUE);
     }
 
-    private boolean isReachedDestination(String node, String to, int depth, Integer stops, Condition condition) {
-        if (condition.equals(Condition.MAX_STOPS) &&
-                node.equals(to) && 1 < depth && depth <= stops + 1)
-            return true;
-        else return condition.equals(Condition.EXACT_STOPS) &&
-                node.equals(to) && depth == stops + 1;
+    /**
+     * Enumerates traces between two services with latency less than provided number, the same traces
+     * {@link #countShortestTraces(String, String, int)} counts. Traces are found lazily while the stream is
+     * consumed, so it can be limited without enumerating all of them, and a parallel stream splits the search.
+     * The graph must not be changed while the stream is consumed.
+     *
+     * @param from Node to start from
+     * @param to Destination node
+     * @param maxLatency maximal latency allowed
+     * @return traces, the same reused object for every trace found by one thread, see {@link Trace}
+     * @throws ArithmeticException while the stream is consumed, if the number of traces is infinite
+     */
+    public Stream<Trace> tracesUnderLatency(String from, String to, int maxLatency) {
+        return traces(from, to, 1, Integer.MAX_VALUE, maxLatency);
+    }
+
+    /**
+     * Enumerates traces without repeated services between two services from the shortest one up, e.g. to find
+     * alternatives of the shortest trace: {@code tracesByLatency("A", "C").limit(10)}. Traces are found lazily by
+     * Yen's algorithm, so the cost grows with the number of traces consumed, not with the number of all traces.
+     * Traces from a service to itself are cycles through it. Unlike the other enumerations every trace is a separate
+     * object. The graph must not be changed while the stream is consumed.
+     *
+     * @param from Node to start from
+     * @param to Destination node
+     * @return traces in increasing order of latency
+     */
+    public Stream<Trace> tracesByLatency(String from, String to) {
+        CompactGraph graph = compact();
+        int fromId = graph.symbols().find(from);
+        int toId = graph.symbols().find(to);
+        if (fromId == SymbolTable.NOT_FOUND || toId == SymbolTable.NOT_FOUND)
+            return Stream.empty();
+
+        return StreamSupport.stream(new KShortestPaths(graph, fromId, toId), false);
+    }
+
+    private Stream<Trace> traces(String from, String to, int minHops, int maxHops, long maxLatency) {
+        CompactGraph graph = compact();
+        int fromId = graph.symbols().find(from);
+        int toId = graph.symbols().find(to);
+        if (fromId == SymbolTable.NOT_FOUND || toId == SymbolTable.NOT_FOUND || maxHops < 0)
+            return Stream.empty();
+
+        return StreamSupport.stream(new TraceSpliterator(graph, fromId, toId, minHops, maxHops, maxLatency), false);
     }
 }
@@ -0,0 +1,179 @@
+package ua.olena.tracing.graph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Writes a built graph into a binary snapshot and loads it back by memory mapping the file. All numbers are little
+ * endian ints:
+ * <pre>
+ * magic "TRGS", format version, number of services V, number of connections E, size of names N in bytes,
+ * statistic of the latencies
+ * V + 1 offsets of names, N bytes of UTF-8 names padded to 4 bytes
+ * V + 1 offsets of rows, E target ids, E latencies
+ * CRC32 of everything above as long
+ * </pre>
+ * Rows are stored exactly as the compact form of the graph keeps them, so loading copies whole sections of the
+ * mapped file into arrays instead of parsing them, and only the names are decoded. Loading is still linear in the
+ * size of the file: queries keep running on plain arrays rather than on views of the mapping. Only latencies by the
+ * statistic the graph uses are stored, so a loaded graph can not use another one and has one observation per
+ * connection.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+public final class GraphSnapshot {
+    private static final int MAGIC = 0x53475254;
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_SIZE = 6 * Integer.BYTES;
+
+    private GraphSnapshot() {
+    }
+
+    /**
+     * Writes snapshot of the graph, the file is replaced if it exists.
+     *
+     * @param graph graph to write
+     * @param path path of the snapshot file
+     * @throws IllegalArgumentException if the graph is too big for a snapshot
+     */
+    public static void write(Graph graph, Path path) throws IOException {
+        CompactGraph compact = graph.compact();
+        SymbolTable symbols = compact.symbols();
+        int size = compact.vertexCount();
+        byte[][] names = new byte[size][];
+        int[] nameOffsets = new int[size + 1];
+        for (int id = 0; id < size; id++) {
+            names[id] = symbols.name(id).getBytes(StandardCharsets.UTF_8);
+            nameOffsets[id + 1] = nameOffsets[id] + names[id].length;
+        }
+
+        long fileSize = fileSize(size, compact.edgeCount(), nameOffsets[size]);
+        if (fileSize > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Graph is too big for a snapshot: " + fileSize + " bytes");
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(size).putInt(compact.edgeCount())
+                    .putInt(nameOffsets[size]).putInt(graph.statistic().ordinal());
+            putInts(buffer, nameOffsets);
+            for (byte[] name : names)
+                buffer.put(name);
+            buffer.position(align(buffer.position()));
+            putInts(buffer, compact.offsets());
+            putInts(buffer, compact.targets());
+            putInts(buffer, compact.latencies());
+            buffer.putLong(checksum(buffer, buffer.position()));
+            buffer.force();
+        }
+    }
+
+    /**
+     * Loads graph from the snapshot. The graph can be queried and changed as any other graph, but only uses the
+     * statistic the snapshot was written with.
+     *
+     * @param path path of the snapshot file
+     * @return loaded graph
+     * @throws IllegalArgumentException if the file is not a snapshot, was written by another version or is corrupted
+     */
+    public static Graph read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE + Long.BYTES || fileSize > Integer.MAX_VALUE)
+                throw corrupted(path);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt() != MAGIC)
+                throw new IllegalArgumentException("Not a graph snapshot: " + path);
+            int formatVersion = buffer.getInt();
+            if (formatVersion != FORMAT_VERSION)
+                throw new IllegalArgumentException("Unsupported version " + formatVersion + " of snapshot " + path);
+            int size = buffer.getInt();
+            int edgeCount = buffer.getInt();
+            int nameBytes = buffer.getInt();
+            int statistic = buffer.getInt();
+            if (size < 0 || edgeCount < 0 || nameBytes < 0 || fileSize(size, edgeCount, nameBytes) != fileSize
+                    || statistic < 0 || statistic >= Statistic.values().length)
+                throw corrupted(path);
+            int checksumPosition = (int) fileSize - Long.BYTES;
+            if (buffer.getLong(checksumPosition) != checksum(buffer, checksumPosition))
+                throw corrupted(path);
+
+            int[] nameOffsets = getInts(buffer, size + 1);
+            SymbolTable symbols = new SymbolTable();
+            byte[] names = new byte[nameBytes];
+            buffer.get(names);
+            for (int id = 0; id < size; id++) {
+                if (nameOffsets[id] > nameOffsets[id + 1] || nameOffsets[id + 1] > nameBytes)
+                    throw corrupted(path);
+                String name = new String(names, nameOffsets[id], nameOffsets[id + 1] - nameOffsets[id],
+                        StandardCharsets.UTF_8);
+                if (symbols.intern(name) != id)
+                    throw corrupted(path);
+            }
+            buffer.position(align(buffer.position()));
+
+            int[] offsets = getInts(buffer, size + 1);
+            int[] targets = getInts(buffer, edgeCount);
+            int[] latencies = getInts(buffer, edgeCount);
+            if (offsets[0] != 0 || offsets[size] != edgeCount)
+                throw corrupted(path);
+            for (int id = 0; id < size; id++) {
+                if (offsets[id] > offsets[id + 1])
+                    throw corrupted(path);
+            }
+            for (int target : targets) {
+                if (target < 0 || target >= size)
+                    throw corrupted(path);
+            }
+
+            return new Graph(new CompactGraph(symbols, offsets, targets, latencies), Statistic.values()[statistic]);
+        }
+    }
+
+    private static long fileSize(int size, int edgeCount, int nameBytes) {
+        return HEADER_SIZE + 2L * Integer.BYTES * (size + 1) + align(nameBytes)
+                + 2L * Integer.BYTES * edgeCount + Long.BYTES;
+    }
+
+    private static long align(long position) {
+        return (position + Integer.BYTES - 1) & -Integer.BYTES;
+    }
+
+    private static int align(int position) {
+        return (int) align((long) position);
+    }
+
+    private static void putInts(ByteBuffer buffer, int[] values) {
+        buffer.asIntBuffer().put(values);
+        buffer.position(buffer.position() + values.length * Integer.BYTES);
+    }
+
+    private static int[] getInts(ByteBuffer buffer, int length) {
+        int[] values = new int[length];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + length * Integer.BYTES);
+
+        return values;
+    }
+
+    private static long checksum(ByteBuffer buffer, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().position(0).limit(length));
+
+        return crc.getValue();
+    }
+
+    private static IllegalArgumentException corrupted(Path path) {
+        return new IllegalArgumentException("Snapshot is corrupted: " + path);
+    }
+}
@@ -0,0 +1,101 @@
+package ua.olena.tracing.graph;
+
+import java.util.Arrays;
+
+/**
+ * Counts traces between two vertexes by number of hops with dynamic programming. Layer {@code k} holds the number
+ * of traces with exactly {@code k} hops from the source to every vertex, the next layer is built by pushing
+ * these numbers along every edge, so the cost is O(stops * (V + E)) instead of growing with the number of traces.
+ * Vertexes that can not reach any destination within the rest of the hops are not expanded, see
+ * {@link Reachability#hopDeadlines(int[], int[])}.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+final class HopCounter {
+
+    private HopCounter() {
+    }
+
+    /**
+     * Counts traces from one vertex to another with maximum/exact number of hops.
+     *
+     * @param graph compact graph
+     * @param from id of the source vertex
+     * @param to id of the destination vertex
+     * @param stops number of hops
+     * @param condition Maximum or Exact
+     * @param meter budget of the query
+     * @return number of traces
+     * @throws ArithmeticException if the number of traces does not fit into long
+     */
+    static long count(CompactGraph graph, int from, int to, int stops, Condition condition, BudgetMeter meter) {
+        return count(graph, from, new int[]{to}, new int[]{stops}, new Condition[]{condition}, meter)[0];
+    }
+
+    /**
+     * Counts traces from one vertex to several destinations with a single pass over the layers.
+     *
+     * @param graph compact graph
+     * @param from id of the source vertex
+     * @param to ids of the destination vertexes, {@link SymbolTable#NOT_FOUND} is allowed
+     * @param stops number of hops for every destination
+     * @param conditions Maximum or Exact for every destination
+     * @return number of traces for every destination
+     * @throws ArithmeticException if the number of traces does not fit into long
+     */
+    static long[] count(CompactGraph graph, int from, int[] to, int[] stops, Condition[] conditions) {
+        return count(graph, from, to, stops, conditions, BudgetMeter.UNLIMITED);
+    }
+
+    /**
+     * Counts traces from one vertex to several destinations, stops when the budget runs out. Every vertex of every
+     * layer is an expanded node, numbers of traces of the finished layers are returned if the budget runs out.
+     */
+    static long[] count(CompactGraph graph, int from, int[] to, int[] stops, Condition[] conditions,
+                        BudgetMeter meter) {
+        long[] traceNumbers = new long[to.length];
+        int maxStops = 0;
+        for (int i = 0; i < to.length; i++) {
+            maxStops = Math.max(maxStops, stops[i]);
+            if (stops[i] == 0 && conditions[i].equals(Condition.EXACT_STOPS) && to[i] == from)
+                traceNumbers[i] = 1;
+        }
+
+        int[] deadlines = graph.reachability().hopDeadlines(to, stops);
+        long[] current = new long[graph.vertexCount()];
+        long[] next = new long[graph.vertexCount()];
+        current[from] = 1;
+        for (int hop = 1; hop <= maxStops; hop++) {
+            meter.depth(hop);
+            boolean reachable = false;
+            for (int vertex = 0; vertex < current.length; vertex++) {
+                long traces = current[vertex];
+                if (traces == 0 || hop - 1 > deadlines[vertex])
+                    continue;
+                if (!meter.expand(graph.lastEdge(vertex) - graph.firstEdge(vertex)))
+                    return traceNumbers;
+                for (int edge = graph.firstEdge(vertex); edge < graph.lastEdge(vertex); edge++) {
+                    int target = graph.target(edge);
+                    next[target] = Math.addExact(next[target], traces);
+                }
+                reachable = true;
+            }
+            if (!reachable)
+                break;
+
+            for (int i = 0; i < to.length; i++) {
+                if (to[i] != SymbolTable.NOT_FOUND && (hop == stops[i]
+                        || (hop < stops[i] && conditions[i].equals(Condition.MAX_STOPS))))
+                    traceNumbers[i] = Math.addExact(traceNumbers[i], next[to[i]]);
+            }
+
+            long[] swap = current;
+            current = next;
+            next = swap;
+            Arrays.fill(next, 0);
+        }
+
+        return traceNumbers;
+    }
+}
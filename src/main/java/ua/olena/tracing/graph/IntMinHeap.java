@@ -0,0 +1,102 @@
+package ua.olena.tracing.graph;
+
+import java.util.Arrays;
+
+/**
+ * Indexed binary heap of vertex ids ordered by a long key. Keeps the position of every vertex, so the key
+ * can be decreased in place instead of pushing duplicates.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+final class IntMinHeap {
+    private final int[] heap;
+    private final int[] positions;
+    private final long[] keys;
+    private int size;
+
+    IntMinHeap(int capacity) {
+        heap = new int[capacity];
+        positions = new int[capacity];
+        keys = new long[capacity];
+        Arrays.fill(positions, -1);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean contains(int vertex) {
+        return positions[vertex] != -1;
+    }
+
+    long key(int vertex) {
+        return keys[vertex];
+    }
+
+    /**
+     * Inserts the vertex or decreases its key if the new one is smaller.
+     *
+     * @return true if the key of the vertex was changed
+     */
+    boolean offer(int vertex, long key) {
+        int position = positions[vertex];
+        if (position == -1) {
+            position = size++;
+            heap[position] = vertex;
+            positions[vertex] = position;
+        } else if (keys[vertex] <= key) {
+            return false;
+        }
+        keys[vertex] = key;
+        siftUp(position);
+
+        return true;
+    }
+
+    int poll() {
+        int vertex = heap[0];
+        positions[vertex] = -1;
+        if (--size > 0) {
+            heap[0] = heap[size];
+            positions[heap[0]] = 0;
+            siftDown(0);
+        }
+
+        return vertex;
+    }
+
+    private void siftUp(int position) {
+        int vertex = heap[position];
+        long key = keys[vertex];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (keys[heap[parent]] <= key)
+                break;
+            move(heap[parent], position);
+            position = parent;
+        }
+        move(vertex, position);
+    }
+
+    private void siftDown(int position) {
+        int vertex = heap[position];
+        long key = keys[vertex];
+        int half = size >>> 1;
+        while (position < half) {
+            int child = 2 * position + 1;
+            if (child + 1 < size && keys[heap[child + 1]] < keys[heap[child]])
+                child++;
+            if (key <= keys[heap[child]])
+                break;
+            move(heap[child], position);
+            position = child;
+        }
+        move(vertex, position);
+    }
+
+    private void move(int vertex, int position) {
+        heap[position] = vertex;
+        positions[vertex] = position;
+    }
+}
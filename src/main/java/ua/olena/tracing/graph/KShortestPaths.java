@@ -0,0 +1,208 @@
+package ua.olena.tracing.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Lazy enumeration of traces without repeated services in increasing order of latency with Yen's algorithm. The
+ * first trace is the shortest one, every next trace is the best of the candidates built from the previous traces:
+ * for every service of the last trace found, the shortest detour from it is searched with the connections already
+ * used after the same beginning removed and the services of the beginning blocked. Finding the next trace costs
+ * up to one shortest path search per service of the previous one, however many traces there are in total.
+ * <p>
+ * Traces from a service to itself are cycles: the service is repeated only at the end. Traces of equal latency are
+ * ordered by number of hops, then by ids of the services.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+final class KShortestPaths implements Spliterator<Trace> {
+    private final CompactGraph graph;
+    private final int from;
+    private final int to;
+    private final List<int[]> found = new ArrayList<>();
+    private final PriorityQueue<Candidate> candidates = new PriorityQueue<>();
+    private final Set<Candidate> seen = new HashSet<>();
+    private final boolean[] blockedVertexes;
+    private final boolean[] blockedEdges;
+    private final boolean[] settled;
+    private final int[] parents;
+    private final IntMinHeap heap;
+    private boolean started;
+    private boolean spurred = true;
+
+    KShortestPaths(CompactGraph graph, int from, int to) {
+        this.graph = graph;
+        this.from = from;
+        this.to = to;
+        blockedVertexes = new boolean[graph.vertexCount()];
+        blockedEdges = new boolean[graph.edgeCount()];
+        settled = new boolean[graph.vertexCount()];
+        parents = new int[graph.vertexCount()];
+        heap = new IntMinHeap(graph.vertexCount());
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Trace> action) {
+        if (!started) {
+            started = true;
+            int[] path = shortestPath(from);
+            if (path != null)
+                offer(path, 0, 0);
+        }
+        if (!spurred) {
+            spurred = true;
+            spur(found.get(found.size() - 1));
+        }
+
+        Candidate next = candidates.poll();
+        if (next == null)
+            return false;
+
+        found.add(next.path);
+        spurred = false;
+        Trace trace = new Trace(graph.symbols());
+        trace.set(next.path, next.path.length, next.latency);
+        action.accept(trace);
+        return true;
+    }
+
+    /**
+     * Adds candidates deviating from the previous trace at every its service.
+     */
+    private void spur(int[] previous) {
+        long rootLatency = 0;
+        for (int i = 0; i < previous.length - 1; i++) {
+            Arrays.fill(blockedVertexes, false);
+            Arrays.fill(blockedEdges, false);
+            for (int j = 0; j < i; j++) {
+                if (previous[j] != to)
+                    blockedVertexes[previous[j]] = true;
+            }
+            for (int[] path : found) {
+                if (path.length > i + 1 && Arrays.equals(path, 0, i + 1, previous, 0, i + 1))
+                    blockedEdges[graph.edge(path[i], path[i + 1])] = true;
+            }
+
+            int[] spur = shortestPath(previous[i]);
+            if (spur != null) {
+                int[] path = Arrays.copyOf(previous, i + spur.length);
+                System.arraycopy(spur, 0, path, i, spur.length);
+                offer(path, i, rootLatency);
+            }
+            rootLatency += graph.latency(previous[i], previous[i + 1]);
+        }
+    }
+
+    private void offer(int[] path, int root, long rootLatency) {
+        long latency = rootLatency;
+        for (int i = root; i < path.length - 1; i++)
+            latency += graph.latency(path[i], path[i + 1]);
+        Candidate candidate = new Candidate(path, latency);
+        if (seen.add(candidate))
+            candidates.add(candidate);
+    }
+
+    /**
+     * Dijkstra's search from the service to the destination avoiding blocked services and connections. The source
+     * is not settled at 0 if it is the destination, so the path is a cycle.
+     *
+     * @return services of the path or null if there is none
+     */
+    private int[] shortestPath(int source) {
+        Arrays.fill(settled, false);
+        while (!heap.isEmpty())
+            heap.poll();
+        settled[source] = source != to;
+        relax(source, 0);
+
+        while (!heap.isEmpty()) {
+            int vertex = heap.poll();
+            long distance = heap.key(vertex);
+            if (vertex == to)
+                return path(source);
+            settled[vertex] = true;
+            relax(vertex, distance);
+        }
+
+        return null;
+    }
+
+    private void relax(int vertex, long distance) {
+        for (int edge = graph.firstEdge(vertex); edge < graph.lastEdge(vertex); edge++) {
+            int target = graph.target(edge);
+            if (!settled[target] && !blockedVertexes[target] && !blockedEdges[edge]
+                    && heap.offer(target, distance + graph.edgeLatency(edge)))
+                parents[target] = vertex;
+        }
+    }
+
+    private int[] path(int source) {
+        int size = 2;
+        for (int vertex = parents[to]; vertex != source; vertex = parents[vertex])
+            size++;
+
+        int[] path = new int[size];
+        path[size - 1] = to;
+        path[0] = source;
+        int vertex = parents[to];
+        for (int i = size - 2; i > 0; i--) {
+            path[i] = vertex;
+            vertex = parents[vertex];
+        }
+        return path;
+    }
+
+    @Override
+    public Spliterator<Trace> trySplit() {
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+
+    /**
+     * Trace that can be found next, equal to another one with the same services.
+     */
+    private static final class Candidate implements Comparable<Candidate> {
+        private final int[] path;
+        private final long latency;
+
+        private Candidate(int[] path, long latency) {
+            this.path = path;
+            this.latency = latency;
+        }
+
+        @Override
+        public int compareTo(Candidate other) {
+            int order = Long.compare(latency, other.latency);
+            if (order == 0)
+                order = Integer.compare(path.length, other.path.length);
+
+            return order != 0 ? order : Arrays.compare(path, other.path);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Candidate && Arrays.equals(path, ((Candidate) other).path);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(path);
+        }
+    }
+}
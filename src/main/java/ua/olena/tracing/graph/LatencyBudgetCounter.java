@@ -0,0 +1,154 @@
+package ua.olena.tracing.graph;
+
+/**
+ * Counts traces between two vertexes with total latency less than a budget with dynamic programming over
+ * (latency, vertex). Row {@code l} holds the number of traces with total latency exactly {@code l} from the source
+ * to every vertex and is pushed along every edge into later rows. Only the rows that can still be reached are
+ * kept, so memory is O(min(budget, max edge latency) * V). Cells with traces are counted per row, so rows without
+ * traces are skipped and counting stops once no trace is left under the budget: time is O(R * (V + E)) for the R
+ * latencies traces actually reach, however large the budget is. Vertexes that can not reach any destination within
+ * the rest of the budget are not expanded, see {@link Reachability#latencyDeadlines(int[], int[])}.
+ * <p>
+ * Rows are processed in increasing latency. Edges with zero latency lead into the same row, so vertexes of a row
+ * are processed in {@link ZeroLatencyOrder}: all traces reaching a vertex through them are counted before it is
+ * expanded. A trace reaching a cycle of such edges within the budget makes the number of traces infinite. For
+ * latencies too large to keep the rows in memory the counter falls back to enumeration of the traces.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+final class LatencyBudgetCounter {
+    static final int MAX_CELLS = 1 << 23;
+
+    private LatencyBudgetCounter() {
+    }
+
+    /**
+     * Counts traces with at least one hop and total latency less than provided number.
+     *
+     * @param graph compact graph
+     * @param from id of the source vertex
+     * @param to id of the destination vertex
+     * @param maxLatency latency budget, traces must be strictly shorter
+     * @param meter budget of the query
+     * @return number of traces
+     * @throws ArithmeticException if the number of traces is infinite or does not fit into long
+     */
+    static long count(CompactGraph graph, int from, int to, int maxLatency, BudgetMeter meter) {
+        return count(graph, from, new int[]{to}, new int[]{maxLatency}, meter)[0];
+    }
+
+    /**
+     * Counts traces from one vertex to several destinations with a single pass over the rows.
+     *
+     * @param graph compact graph
+     * @param from id of the source vertex
+     * @param to ids of the destination vertexes, {@link SymbolTable#NOT_FOUND} is allowed
+     * @param maxLatencies latency budget for every destination
+     * @return number of traces for every destination
+     * @throws ArithmeticException if the number of traces is infinite or does not fit into long
+     */
+    static long[] count(CompactGraph graph, int from, int[] to, int[] maxLatencies) {
+        return count(graph, from, to, maxLatencies, BudgetMeter.UNLIMITED);
+    }
+
+    /**
+     * Counts traces from one vertex to several destinations, stops when the budget runs out. Every vertex of every
+     * row is an expanded node, the time and the cancellation are checked after every row even if it expands no node.
+     * Traces shorter than the row reached are counted if the budget runs out.
+     */
+    static long[] count(CompactGraph graph, int from, int[] to, int[] maxLatencies, BudgetMeter meter) {
+        long[] traceNumbers = new long[to.length];
+        int maxLatency = 0;
+        for (int budget : maxLatencies)
+            maxLatency = Math.max(maxLatency, budget);
+        if (maxLatency <= 0)
+            return traceNumbers;
+
+        int size = graph.vertexCount();
+        int longestEdge = 0;
+        for (int edge = 0; edge < graph.edgeCount(); edge++)
+            longestEdge = Math.max(longestEdge, graph.edgeLatency(edge));
+        int window = Math.min(longestEdge, maxLatency) + 1;
+        if ((long) window * size > MAX_CELLS) {
+            for (int i = 0; i < to.length; i++) {
+                if (to[i] != SymbolTable.NOT_FOUND)
+                    traceNumbers[i] = graph.countUnderLatency(from, to[i], maxLatencies[i], meter);
+            }
+            return traceNumbers;
+        }
+
+        int[] deadlines = graph.reachability().latencyDeadlines(to, maxLatencies);
+        ZeroLatencyOrder order = graph.zeroLatencyOrder();
+        int[] destinations = new int[size];
+        int[] nextDestination = new int[to.length];
+        for (int i = 0; i < to.length; i++) {
+            if (to[i] != SymbolTable.NOT_FOUND) {
+                nextDestination[i] = destinations[to[i]] - 1;
+                destinations[to[i]] = i + 1;
+            }
+        }
+        long[] traces = new long[window * size];
+        int[] rowCells = new int[window];
+        traces[from] = 1;
+        rowCells[0] = 1;
+        int cells = 1;
+        for (int latency = 0; latency < maxLatency && cells > 0; latency = nextRow(rowCells, latency)) {
+            int slot = latency % window;
+            int row = slot * size;
+            for (int position = 0; position < size && rowCells[slot] > 0; position++) {
+                int vertex = order.vertex(position);
+                long count = traces[row + vertex];
+                if (count == 0)
+                    continue;
+                traces[row + vertex] = 0;
+                rowCells[slot]--;
+                cells--;
+                // the source at latency 0 holds the trace without hops, other traces back to it there are on a cycle
+                for (int i = destinations[vertex] - 1; i >= 0 && (latency > 0 || vertex != from);
+                     i = nextDestination[i]) {
+                    if (latency < maxLatencies[i])
+                        traceNumbers[i] = Math.addExact(traceNumbers[i], count);
+                }
+                if (latency >= deadlines[vertex])
+                    continue;
+                if (order.isCyclic(vertex))
+                    throw graph.infiniteTraces(vertex);
+                if (!meter.expand(graph.lastEdge(vertex) - graph.firstEdge(vertex)))
+                    return traceNumbers;
+                for (int edge = graph.firstEdge(vertex); edge < graph.lastEdge(vertex); edge++) {
+                    long total = (long) latency + graph.edgeLatency(edge);
+                    if (total < maxLatency) {
+                        int target = (int) total % window;
+                        int cell = target * size + graph.target(edge);
+                        if (traces[cell] == 0) {
+                            rowCells[target]++;
+                            cells++;
+                        }
+                        traces[cell] = Math.addExact(traces[cell], count);
+                    }
+                }
+            }
+            if (!meter.check())
+                return traceNumbers;
+        }
+
+        return traceNumbers;
+    }
+
+    /**
+     * Finds the next row with traces, every row with traces is at most a window of rows ahead of the current one.
+     *
+     * @return latency of the next row with traces, the next latency if there are no traces left
+     */
+    static int nextRow(int[] rowCells, int latency) {
+        int window = rowCells.length;
+        int slot = latency % window;
+        for (int offset = 1; offset < window; offset++) {
+            if (rowCells[(slot + offset) % window] > 0)
+                return latency + offset;
+        }
+
+        return latency + 1;
+    }
+}
@@ -0,0 +1,75 @@
+package ua.olena.tracing.graph;
+
+import java.util.Arrays;
+
+/**
+ * Histogram of latencies with logarithmic buckets. Latencies below 8 get a bucket each, every following power
+ * of two is split into 4 buckets, so a percentile is estimated with an error within 12.5% while all int latencies fit
+ * into 120 buckets. The array only grows up to the bucket of the largest latency seen. Buckets count samples in longs
+ * like the edge does, a hot bucket of merged histograms does not overflow.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_BUCKETS = 2 * SUB_BUCKETS;
+
+    private long[] counts = new long[0];
+
+    void add(int latency) {
+        int bucket = bucket(latency);
+        if (bucket >= counts.length)
+            counts = Arrays.copyOf(counts, bucket + 1);
+        counts[bucket]++;
+    }
+
+    /**
+     * Adds all samples of the other histogram.
+     */
+    void merge(LatencyHistogram other) {
+        if (other.counts.length > counts.length)
+            counts = Arrays.copyOf(counts, other.counts.length);
+        for (int bucket = 0; bucket < other.counts.length; bucket++)
+            counts[bucket] += other.counts[bucket];
+    }
+
+    /**
+     * Estimates the latency below which the provided share of the samples falls.
+     *
+     * @param percentile share of the samples between 0 and 1
+     * @param count number of samples in the histogram
+     * @return middle of the bucket containing the percentile
+     */
+    int percentile(double percentile, long count) {
+        long rank = Math.max(1, (long) Math.ceil(percentile * count));
+        long seen = 0;
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank)
+                return middle(bucket);
+        }
+
+        return middle(counts.length - 1);
+    }
+
+    static int bucket(int latency) {
+        if (latency < LINEAR_BUCKETS)
+            return latency;
+        int exponent = 31 - Integer.numberOfLeadingZeros(latency);
+        int mantissa = (latency >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + mantissa;
+    }
+
+    private static int middle(int bucket) {
+        if (bucket < LINEAR_BUCKETS)
+            return bucket;
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int width = 1 << (exponent - SUB_BUCKET_BITS);
+        long low = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+
+        return (int) Math.min(Integer.MAX_VALUE, low + (width - 1) / 2);
+    }
+}
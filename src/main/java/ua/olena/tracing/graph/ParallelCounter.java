@@ -0,0 +1,222 @@
+package ua.olena.tracing.graph;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.StreamSupport;
+
+/**
+ * Counts traces of a single query with all threads of a fork-join pool. Counts are sums of exact long numbers,
+ * so results are the same as those of the single-threaded counters whatever order the parts finish in.
+ * <p>
+ * Dynamic programming over hops or latency pulls the numbers of traces of every vertex from the previous layers
+ * along the reverse connections, so every vertex is written by one task only and ranges of vertexes of a layer are
+ * counted in parallel. Latency rows that no trace can reach are skipped and counting stops once the window has no
+ * traces left, so a large budget costs no more than the latencies traces actually reach. Graphs with fewer than
+ * {@link #MIN_PARALLEL_VERTEXES} vertexes are counted by one thread, a layer of them is too small to split.
+ * Connections with zero latency lead into the same row, which the rows of a window can not pull from in parallel,
+ * so graphs with them are counted by {@link LatencyBudgetCounter}. Latencies too large for the window are counted by
+ * enumerating the traces with a parallel stream over {@link TraceSpliterator} on the pool, which throws on cycles of
+ * connections with zero latency like the counters do.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+final class ParallelCounter {
+    static final int MIN_PARALLEL_VERTEXES = 1 << 12;
+    private static final int VERTEXES_PER_TASK = 1 << 10;
+
+    private ParallelCounter() {
+    }
+
+    /**
+     * Counts traces from one vertex to another with maximum/exact number of hops.
+     *
+     * @param meter meter of the query, counts vertexes that pulled traces and every reverse edge read per layer
+     * @throws ArithmeticException if the number of traces does not fit into long
+     */
+    static long countByStops(CompactGraph graph, int from, int to, int stops, Condition condition,
+                             ForkJoinPool pool, BudgetMeter meter) {
+        if (graph.vertexCount() < MIN_PARALLEL_VERTEXES)
+            return HopCounter.count(graph, from, to, stops, condition, meter);
+
+        Reachability reachability = graph.reachability();
+        int[] deadlines = reachability.hopDeadlines(new int[]{to}, new int[]{stops});
+        long traceNumber = stops == 0 && condition.equals(Condition.EXACT_STOPS) && to == from ? 1 : 0;
+        long[] current = new long[graph.vertexCount()];
+        long[] next = new long[graph.vertexCount()];
+        current[from] = 1;
+        for (int hop = 1; hop <= stops; hop++) {
+            long[] previous = current;
+            long[] layer = next;
+            int last = hop - 1;
+            long reached = pool.invoke(new RangeTask(0, layer.length, (start, end) -> {
+                long vertexes = 0;
+                for (int vertex = start; vertex < end; vertex++) {
+                    long traces = 0;
+                    for (int edge = reachability.firstReverseEdge(vertex);
+                         edge < reachability.lastReverseEdge(vertex); edge++) {
+                        int source = reachability.source(edge);
+                        if (last <= deadlines[source])
+                            traces = Math.addExact(traces, previous[source]);
+                    }
+                    layer[vertex] = traces;
+                    if (traces > 0)
+                        vertexes++;
+                }
+                return vertexes;
+            }));
+            meter.expand(reached, graph.edgeCount());
+            meter.depth(hop);
+            if (reached == 0)
+                break;
+
+            if (hop == stops || (hop < stops && condition.equals(Condition.MAX_STOPS)))
+                traceNumber = Math.addExact(traceNumber, layer[to]);
+            current = layer;
+            next = previous;
+        }
+
+        return traceNumber;
+    }
+
+    /**
+     * Counts traces with at least one hop and total latency less than provided number.
+     *
+     * @param meter meter of the query, counts vertexes that pulled traces and every reverse edge read per layer
+     * @throws ArithmeticException if the number of traces is infinite or does not fit into long
+     */
+    static long countUnderLatency(CompactGraph graph, int from, int to, int maxLatency, ForkJoinPool pool,
+                                  BudgetMeter meter) {
+        if (maxLatency <= 0)
+            return 0;
+
+        int size = graph.vertexCount();
+        int longestEdge = 0;
+        int shortestEdge = Integer.MAX_VALUE;
+        for (int edge = 0; edge < graph.edgeCount(); edge++) {
+            int latency = graph.edgeLatency(edge);
+            longestEdge = Math.max(longestEdge, latency);
+            shortestEdge = Math.min(shortestEdge, latency);
+        }
+        int window = Math.min(longestEdge, maxLatency) + 1;
+        if (size < MIN_PARALLEL_VERTEXES)
+            return LatencyBudgetCounter.count(graph, from, to, maxLatency, meter);
+        if ((long) window * size > LatencyBudgetCounter.MAX_CELLS)
+            return enumerate(graph, from, to, maxLatency, pool, meter);
+        if (shortestEdge == 0)
+            return LatencyBudgetCounter.count(graph, from, to, maxLatency, meter);
+
+        Reachability reachability = graph.reachability();
+        int[] deadlines = reachability.latencyDeadlines(new int[]{to}, new int[]{maxLatency});
+        long[] traces = new long[window * size];
+        int[] rowLatencies = new int[window];
+        int[] rowCells = new int[window];
+        Arrays.fill(rowLatencies, -1);
+        traces[from] = 1;
+        rowLatencies[0] = 0;
+        rowCells[0] = 1;
+        long traceNumber = 0;
+        for (int latency = nextRow(rowLatencies, rowCells, 0, shortestEdge); latency > 0 && latency < maxLatency;
+             latency = nextRow(rowLatencies, rowCells, latency, shortestEdge)) {
+            int current = latency;
+            int slot = latency % window;
+            int row = slot * size;
+            long cells = pool.invoke(new RangeTask(0, size, (start, end) -> {
+                long vertexes = 0;
+                for (int vertex = start; vertex < end; vertex++) {
+                    long count = 0;
+                    for (int edge = reachability.firstReverseEdge(vertex);
+                         edge < reachability.lastReverseEdge(vertex); edge++) {
+                        int previous = current - reachability.reverseLatency(edge);
+                        int source = reachability.source(edge);
+                        if (previous >= 0 && previous < deadlines[source]
+                                && rowLatencies[previous % window] == previous)
+                            count = Math.addExact(count, traces[previous % window * size + source]);
+                    }
+                    traces[row + vertex] = count;
+                    if (count > 0)
+                        vertexes++;
+                }
+                return vertexes;
+            }));
+            meter.expand(cells, graph.edgeCount());
+            rowLatencies[slot] = latency;
+            rowCells[slot] = (int) cells;
+            traceNumber = Math.addExact(traceNumber, traces[row + to]);
+        }
+
+        return traceNumber;
+    }
+
+    /**
+     * Counts traces one by one with all threads of the pool, every trace found is counted as an expanded node.
+     */
+    private static long enumerate(CompactGraph graph, int from, int to, int maxLatency, ForkJoinPool pool,
+                                  BudgetMeter meter) {
+        long traceNumber = pool.submit(() -> StreamSupport.stream(
+                new TraceSpliterator(graph, from, to, 1, Integer.MAX_VALUE, maxLatency), true)
+                .mapToLong(trace -> 1)
+                .reduce(0, Math::addExact)).join();
+        meter.expand(traceNumber, 0);
+
+        return traceNumber;
+    }
+
+    /**
+     * Finds the next row that can have traces: rows are only reached by connections from earlier rows of the window,
+     * so it is at least the shortest connection away from the earliest row with traces that can still be followed.
+     * Rows skipped keep the latency of their old traces, so they are never read as rows of the skipped latencies.
+     *
+     * @return latency of the next row or -1 if no row of the window has traces left
+     */
+    private static int nextRow(int[] rowLatencies, int[] rowCells, int latency, int shortestEdge) {
+        int window = rowLatencies.length;
+        long earliest = Long.MAX_VALUE;
+        for (int slot = 0; slot < window; slot++) {
+            if (rowCells[slot] > 0 && (long) rowLatencies[slot] + window - 1 > latency)
+                earliest = Math.min(earliest, rowLatencies[slot]);
+        }
+        if (earliest == Long.MAX_VALUE)
+            return -1;
+
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(latency + 1L, earliest + shortestEdge));
+    }
+
+    /**
+     * Computes a value for a range of vertexes.
+     */
+    @FunctionalInterface
+    private interface RangeFunction {
+        long apply(int start, int end);
+    }
+
+    /**
+     * Splits range of vertexes in halves until it is small enough and sums the values of the parts.
+     */
+    private static final class RangeTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final int start;
+        private final int end;
+        private final RangeFunction function;
+
+        private RangeTask(int start, int end, RangeFunction function) {
+            this.start = start;
+            this.end = end;
+            this.function = function;
+        }
+
+        @Override
+        protected Long compute() {
+            if (end - start <= VERTEXES_PER_TASK)
+                return function.apply(start, end);
+
+            int middle = (start + end) >>> 1;
+            RangeTask left = new RangeTask(start, middle, function);
+            left.fork();
+            long right = new RangeTask(middle, end, function).compute();
+            return right + left.join();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package ua.olena.tracing.graph;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Batch of recorded paths like A-B-C or auth-svc&gt;billing-svc encoded as ids of services of one graph. Ids of
+ * all paths are stored one after another in a single array and the end of every path in another one, so a batch of
+ * any size is two arrays. Services unknown to the graph are kept as -1.
+ * <p>
+ * A batch can only be evaluated by the graph it was created for, and the graph must not change meanwhile.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+public final class PathBatch {
+    private static final char TRACE_SEPARATOR = '>';
+    private static final char SHORT_TRACE_SEPARATOR = '-';
+
+    private final SymbolTable symbols;
+    private int[] services = new int[64];
+    private int[] ends = new int[16];
+    private int size;
+    private int length;
+
+    public PathBatch(Graph graph) {
+        symbols = graph.compact().symbols();
+    }
+
+    /**
+     * Resolves services of the path and appends them to the batch.
+     *
+     * @param path path like A-B-C or auth-svc&gt;billing-svc
+     */
+    public void add(CharSequence path) {
+        char separator = SHORT_TRACE_SEPARATOR;
+        for (int i = 0; i < path.length(); i++) {
+            if (path.charAt(i) == TRACE_SEPARATOR) {
+                separator = TRACE_SEPARATOR;
+                break;
+            }
+        }
+
+        int start = 0;
+        for (int i = 0; i <= path.length(); i++) {
+            if (i == path.length() || path.charAt(i) == separator) {
+                append(symbols.find(path, start, i));
+                start = i + 1;
+            }
+        }
+        endPath();
+    }
+
+    /**
+     * Resolves services of the path stored as UTF-8 bytes in the region of the array and appends them to the batch.
+     * Paths of ASCII names, like all names read from trace files, are resolved from the bytes without decoding.
+     *
+     * @param chars bytes containing the path
+     * @param start index of the first byte of the path
+     * @param end index after the last byte of the path
+     */
+    public void add(byte[] chars, int start, int end) {
+        byte separator = SHORT_TRACE_SEPARATOR;
+        for (int i = start; i < end; i++) {
+            if (chars[i] < 0) {
+                add(new String(chars, start, end - start, StandardCharsets.UTF_8));
+                return;
+            }
+            if (chars[i] == TRACE_SEPARATOR)
+                separator = TRACE_SEPARATOR;
+        }
+
+        int serviceStart = start;
+        for (int i = start; i <= end; i++) {
+            if (i == end || chars[i] == separator) {
+                append(symbols.find(chars, serviceStart, i));
+                serviceStart = i + 1;
+            }
+        }
+        endPath();
+    }
+
+    /**
+     * @return number of paths in the batch
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes all paths, keeping the arrays for the next ones.
+     */
+    public void clear() {
+        size = 0;
+        length = 0;
+    }
+
+    private void append(int service) {
+        if (length == services.length)
+            services = Arrays.copyOf(services, length * 2);
+        services[length++] = service;
+    }
+
+    private void endPath() {
+        if (size == ends.length)
+            ends = Arrays.copyOf(ends, size * 2);
+        ends[size++] = length;
+    }
+
+    int start(int path) {
+        return path == 0 ? 0 : ends[path - 1];
+    }
+
+    int end(int path) {
+        return ends[path];
+    }
+
+    int service(int index) {
+        return services[index];
+    }
+}
@@ -0,0 +1,156 @@
+package ua.olena.tracing.graph;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Summary of evaluated paths: how many of them could not be followed and which connections were missing how many
+ * times. Missing connections are counted by a pair of service ids, their names are only built by
+ * {@link #getMissingEdgeCounts()}.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+public final class PathReport {
+    private static final long EMPTY = -1;
+
+    private final SymbolTable symbols;
+    private long paths;
+    private long missingPaths;
+    private long missingEdges;
+    private long unknownServices;
+    private long[] keys = emptyKeys(16);
+    private long[] counts = new long[16];
+    private int size;
+
+    PathReport(SymbolTable symbols) {
+        this.symbols = symbols;
+    }
+
+    void path(boolean missing) {
+        paths++;
+        if (missing)
+            missingPaths++;
+    }
+
+    void unknownService() {
+        unknownServices++;
+    }
+
+    void missingEdge(int from, int to) {
+        missingEdges++;
+        count((long) from << 32 | to, 1);
+    }
+
+    /**
+     * @param other report of other paths of the same graph
+     * @return new report of the paths of both reports
+     */
+    public PathReport merge(PathReport other) {
+        PathReport merged = new PathReport(symbols);
+        merged.addAll(this);
+        merged.addAll(other);
+
+        return merged;
+    }
+
+    /**
+     * @return number of evaluated paths
+     */
+    public long getPaths() {
+        return paths;
+    }
+
+    /**
+     * @return number of paths with at least one missing connection or unknown service
+     */
+    public long getMissingPaths() {
+        return missingPaths;
+    }
+
+    /**
+     * @return number of hops between known services that are not connected in the graph
+     */
+    public long getMissingEdges() {
+        return missingEdges;
+    }
+
+    /**
+     * @return number of hops from or to services that are not in the graph
+     */
+    public long getUnknownServices() {
+        return unknownServices;
+    }
+
+    /**
+     * @return number of hops over every missing connection by connection like A-E, sorted by connection
+     */
+    public Map<String, Long> getMissingEdgeCounts() {
+        Map<String, Long> missing = new TreeMap<>();
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) {
+                String from = symbols.name((int) (keys[slot] >>> 32));
+                String to = symbols.name((int) keys[slot]);
+                char separator = from.indexOf('-') >= 0 || to.indexOf('-') >= 0 ? '>' : '-';
+                missing.put(from + separator + to, counts[slot]);
+            }
+        }
+
+        return missing;
+    }
+
+    private void addAll(PathReport report) {
+        paths += report.paths;
+        missingPaths += report.missingPaths;
+        missingEdges += report.missingEdges;
+        unknownServices += report.unknownServices;
+        for (int slot = 0; slot < report.keys.length; slot++) {
+            if (report.keys[slot] != EMPTY)
+                count(report.keys[slot], report.counts[slot]);
+        }
+    }
+
+    private void count(long key, long count) {
+        int mask = keys.length - 1;
+        int slot = slot(key, mask);
+        for (; keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                counts[slot] += count;
+                return;
+            }
+        }
+        keys[slot] = key;
+        counts[slot] = count;
+        if (++size * 2 > keys.length)
+            rehash();
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        long[] oldCounts = counts;
+        keys = emptyKeys(oldKeys.length * 2);
+        counts = new long[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slot(oldKeys[i], mask);
+                while (keys[slot] != EMPTY)
+                    slot = (slot + 1) & mask;
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    private static long[] emptyKeys(int size) {
+        long[] keys = new long[size];
+        Arrays.fill(keys, EMPTY);
+        return keys;
+    }
+
+    private static int slot(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & mask;
+    }
+}
@@ -0,0 +1,121 @@
+package ua.olena.tracing.graph;
+
+import java.util.Objects;
+
+/**
+ * One question to the graph: average latency of a trace, number of traces by stops, length of the shortest
+ * trace or number of traces shorter than a latency budget.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+public final class Query {
+    public enum Type {
+        LATENCY, STOPS, SHORTEST, BUDGET
+    }
+
+    private final Type type;
+    private final String trace;
+    private final String from;
+    private final String to;
+    private final int number;
+    private final Condition condition;
+
+    private Query(Type type, String trace, String from, String to, int number, Condition condition) {
+        this.type = type;
+        this.trace = trace;
+        this.from = from;
+        this.to = to;
+        this.number = number;
+        this.condition = condition;
+    }
+
+    /**
+     * Average latency of the trace like A-B-C.
+     */
+    public static Query latency(String trace) {
+        return new Query(Type.LATENCY, trace, null, null, 0, null);
+    }
+
+    /**
+     * Number of traces between two services with maximum/exact number of stops.
+     */
+    public static Query stops(String from, String to, int stops, Condition condition) {
+        return new Query(Type.STOPS, null, from, to, stops, condition);
+    }
+
+    /**
+     * Length of the shortest trace between two services.
+     */
+    public static Query shortest(String from, String to) {
+        return new Query(Type.SHORTEST, null, from, to, 0, null);
+    }
+
+    /**
+     * Number of traces between two services with latency less than provided number.
+     */
+    public static Query budget(String from, String to, int maxLatency) {
+        return new Query(Type.BUDGET, null, from, to, maxLatency, null);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getTrace() {
+        return trace;
+    }
+
+    public String getFrom() {
+        return from;
+    }
+
+    public String getTo() {
+        return to;
+    }
+
+    /**
+     * @return number of stops for {@link Type#STOPS}, latency budget for {@link Type#BUDGET}
+     */
+    public int getNumber() {
+        return number;
+    }
+
+    public Condition getCondition() {
+        return condition;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        Query query = (Query) o;
+        return number == query.number && type == query.type && condition == query.condition
+                && Objects.equals(trace, query.trace) && Objects.equals(from, query.from)
+                && Objects.equals(to, query.to);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, trace, from, to, number, condition);
+    }
+
+    /**
+     * @return query written the same way as in a query file, like "stops C C max 3"
+     */
+    @Override
+    public String toString() {
+        switch (type) {
+            case LATENCY:
+                return "latency " + trace;
+            case STOPS:
+                return "stops " + from + " " + to + (condition == Condition.EXACT_STOPS ? " exact " : " max ") + number;
+            case SHORTEST:
+                return "shortest " + from + " " + to;
+            default:
+                return "budget " + from + " " + to + " " + number;
+        }
+    }
+}
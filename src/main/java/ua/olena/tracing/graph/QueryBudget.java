@@ -0,0 +1,72 @@
+package ua.olena.tracing.graph;
+
+import java.time.Duration;
+
+/**
+ * Limits the work a query may do: number of expanded nodes, wall time or cancellation by a token. A node is
+ * expanded when a counter or a search follows outgoing connections of a service, once for every state it is
+ * reached in, e.g. every number of hops. Budgets are immutable and can be shared by queries, every query counts
+ * its own nodes and time.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+public final class QueryBudget {
+    private static final QueryBudget UNLIMITED = new QueryBudget(Long.MAX_VALUE, 0, null);
+
+    private final long maxExpandedNodes;
+    private final long timeoutNanos;
+    private final CancellationToken token;
+
+    private QueryBudget(long maxExpandedNodes, long timeoutNanos, CancellationToken token) {
+        this.maxExpandedNodes = maxExpandedNodes;
+        this.timeoutNanos = timeoutNanos;
+        this.token = token;
+    }
+
+    public static QueryBudget unlimited() {
+        return UNLIMITED;
+    }
+
+    /**
+     * @param maxExpandedNodes maximal number of nodes a query may expand
+     * @return budget with the limit
+     */
+    public QueryBudget withMaxExpandedNodes(long maxExpandedNodes) {
+        if (maxExpandedNodes < 1)
+            throw new IllegalArgumentException("Number of expanded nodes must be positive: " + maxExpandedNodes);
+
+        return new QueryBudget(maxExpandedNodes, timeoutNanos, token);
+    }
+
+    /**
+     * @param timeout maximal wall time of a query from its start
+     * @return budget with the limit
+     */
+    public QueryBudget withTimeout(Duration timeout) {
+        if (timeout.isNegative() || timeout.isZero())
+            throw new IllegalArgumentException("Timeout must be positive: " + timeout);
+
+        return new QueryBudget(maxExpandedNodes, timeout.toNanos(), token);
+    }
+
+    /**
+     * @param token token that stops queries when cancelled
+     * @return budget with the token
+     */
+    public QueryBudget withCancellation(CancellationToken token) {
+        return new QueryBudget(maxExpandedNodes, timeoutNanos, token);
+    }
+
+    long getMaxExpandedNodes() {
+        return maxExpandedNodes;
+    }
+
+    long getTimeoutNanos() {
+        return timeoutNanos;
+    }
+
+    CancellationToken getToken() {
+        return token;
+    }
+}
@@ -0,0 +1,65 @@
+package ua.olena.tracing.graph;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of query results with least recently used eviction. Results are tied to the version of the graph
+ * they were calculated for, the whole cache is dropped as soon as a query comes for another version.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+final class QueryCache {
+    private final Map<Query, Object> results;
+    private long version;
+    private long hits;
+    private long misses;
+
+    QueryCache(int maxEntries) {
+        if (maxEntries < 1)
+            throw new IllegalArgumentException("Size of the cache must be positive: " + maxEntries);
+        results = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Query, Object> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns cached result of the query or calculates and caches it.
+     *
+     * @param query query with all its arguments
+     * @param graphVersion current version of the graph
+     * @param calculation calculates the result if it is not cached
+     * @return result of the query
+     */
+    @SuppressWarnings("unchecked")
+    <T> T get(Query query, long graphVersion, Supplier<T> calculation) {
+        if (graphVersion != version) {
+            results.clear();
+            version = graphVersion;
+        }
+
+        Object result = results.get(query);
+        if (result != null) {
+            hits++;
+            return (T) result;
+        }
+        misses++;
+        T calculated = calculation.get();
+        results.put(query, calculated);
+
+        return calculated;
+    }
+
+    long getHits() {
+        return hits;
+    }
+
+    long getMisses() {
+        return misses;
+    }
+}
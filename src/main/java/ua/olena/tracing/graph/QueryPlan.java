@@ -0,0 +1,213 @@
+package ua.olena.tracing.graph;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Answers a list of queries sharing work between them. Queries are grouped by the service they start from, so
+ * one shortest path run answers all shortest trace queries from a service and one pass of the counters answers
+ * all queries by stops or by latency budget from it.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+public final class QueryPlan {
+    /**
+     * Result of a query that was not finished within the budget.
+     */
+    public static final long BUDGET_EXCEEDED = -2;
+    private static final String BUDGET_EXCEEDED_MSG = "BUDGET EXCEEDED";
+
+    private final List<Query> queries;
+    private final List<Integer> latencies = new ArrayList<>();
+    private final Map<String, Source> sources = new LinkedHashMap<>();
+
+    public QueryPlan(List<Query> queries) {
+        this.queries = List.copyOf(queries);
+        for (int i = 0; i < this.queries.size(); i++) {
+            Query query = this.queries.get(i);
+            if (query.getType() == Query.Type.LATENCY) {
+                latencies.add(i);
+            } else {
+                Source source = sources.computeIfAbsent(query.getFrom(), name -> new Source());
+                if (query.getType() == Query.Type.STOPS)
+                    source.stops.add(i);
+                else if (query.getType() == Query.Type.SHORTEST)
+                    source.shortest.add(i);
+                else
+                    source.budget.add(i);
+            }
+        }
+    }
+
+    public List<Query> getQueries() {
+        return queries;
+    }
+
+    /**
+     * Answers all queries for the provided graph.
+     *
+     * @param graph graph to query
+     * @return results in the order of queries, formatted the same way as results of Graph methods
+     */
+    public String[] execute(Graph graph) {
+        return execute(graph, QueryBudget.unlimited());
+    }
+
+    /**
+     * Answers queries for the provided graph while the budget lasts, the budget is shared by all the queries.
+     * Latencies of traces are always answered, the other queries that were not finished are answered with
+     * "BUDGET EXCEEDED".
+     *
+     * @param graph graph to query
+     * @param budget limits of the work
+     * @return results in the order of queries, formatted the same way as results of Graph methods
+     */
+    public String[] execute(Graph graph, QueryBudget budget) {
+        long[] values = evaluate(graph, budget);
+        String[] results = new String[values.length];
+        for (int i = 0; i < values.length; i++)
+            results[i] = format(queries.get(i), values[i]);
+
+        return results;
+    }
+
+    /**
+     * Answers all queries for the provided graph without formatting the results.
+     *
+     * @param graph graph to query
+     * @return results in the order of queries, see {@link #evaluate(Graph, QueryBudget)}
+     */
+    public long[] evaluate(Graph graph) {
+        return evaluate(graph, QueryBudget.unlimited());
+    }
+
+    /**
+     * Answers queries for the provided graph while the budget lasts without formatting the results. Latencies of
+     * traces and shortest traces are {@link Graph#NO_TRACE} if there is no trace, numbers of traces are never
+     * negative, queries that were not finished are {@link #BUDGET_EXCEEDED}.
+     *
+     * @param graph graph to query
+     * @param budget limits of the work, shared by all the queries
+     * @return results in the order of queries
+     */
+    public long[] evaluate(Graph graph, QueryBudget budget) {
+        BudgetMeter meter = new BudgetMeter(budget);
+        CompactGraph compact = graph.compact();
+        long[] results = new long[queries.size()];
+        for (int i : latencies)
+            results[i] = graph.traceLatency(queries.get(i).getTrace());
+
+        for (Map.Entry<String, Source> entry : sources.entrySet()) {
+            int from = compact.symbols().find(entry.getKey());
+            Source source = entry.getValue();
+            if (from == SymbolTable.NOT_FOUND) {
+                source.shortest.forEach(i -> results[i] = Graph.NO_TRACE);
+                continue;
+            }
+
+            int[] to = source.targets(source.shortest, compact);
+            ShortestTraceIndex index = graph.shortestTraceIndex();
+            if (index != null) {
+                for (int i = 0; i < to.length; i++) {
+                    int latency = to[i] == SymbolTable.NOT_FOUND
+                            ? ShortestTraceIndex.UNREACHABLE
+                            : index.get(from, to[i]);
+                    results[source.shortest.get(i)] = latency == ShortestTraceIndex.UNREACHABLE
+                            ? Graph.NO_TRACE
+                            : latency;
+                }
+            } else if (to.length == 1) {
+                long distance = to[0] == SymbolTable.NOT_FOUND
+                        ? ShortestPaths.UNREACHABLE
+                        : ShortestPaths.between(compact, from, to[0], meter);
+                results[source.shortest.get(0)] = distance(distance, meter);
+            } else if (to.length > 1) {
+                long[] distances = ShortestPaths.from(compact, from, meter);
+                for (int i = 0; i < to.length; i++) {
+                    results[source.shortest.get(i)] = to[i] == SymbolTable.NOT_FOUND
+                            ? Graph.NO_TRACE
+                            : distance(distances[to[i]], meter);
+                }
+            }
+
+            if (!source.stops.isEmpty()) {
+                int[] stops = new int[source.stops.size()];
+                Condition[] conditions = new Condition[stops.length];
+                for (int i = 0; i < stops.length; i++) {
+                    stops[i] = queries.get(source.stops.get(i)).getNumber();
+                    conditions[i] = queries.get(source.stops.get(i)).getCondition();
+                }
+                long[] counts = HopCounter.count(compact, from, source.targets(source.stops, compact), stops,
+                        conditions, meter);
+                for (int i = 0; i < counts.length; i++)
+                    results[source.stops.get(i)] = meter.isExceeded() ? BUDGET_EXCEEDED : counts[i];
+            }
+
+            if (!source.budget.isEmpty()) {
+                int[] maxLatencies = new int[source.budget.size()];
+                for (int i = 0; i < maxLatencies.length; i++)
+                    maxLatencies[i] = queries.get(source.budget.get(i)).getNumber();
+                long[] counts = LatencyBudgetCounter.count(compact, from, source.targets(source.budget, compact),
+                        maxLatencies, meter);
+                for (int i = 0; i < counts.length; i++)
+                    results[source.budget.get(i)] = meter.isExceeded() ? BUDGET_EXCEEDED : counts[i];
+            }
+        }
+
+        meter.finish("PLAN", null, null, results.length);
+        return results;
+    }
+
+    /**
+     * Formats result of the query the same way as Graph methods do: "NO SUCH TRACE" for a missing trace,
+     * 0 if there is no shortest trace.
+     *
+     * @param query answered query
+     * @param value result returned by {@link #evaluate(Graph, QueryBudget)}
+     * @return formatted result
+     */
+    public static String format(Query query, long value) {
+        return format(query.getType(), value);
+    }
+
+    /**
+     * @param type type of the answered query
+     * @param value result of the query
+     * @return formatted result
+     */
+    public static String format(Query.Type type, long value) {
+        if (value == BUDGET_EXCEEDED)
+            return BUDGET_EXCEEDED_MSG;
+        if (value == Graph.NO_TRACE)
+            return type == Query.Type.LATENCY ? Graph.NO_TRACE_MSG : "0";
+
+        return String.valueOf(value);
+    }
+
+    private static long distance(long distance, BudgetMeter meter) {
+        if (meter.isExceeded())
+            return BUDGET_EXCEEDED;
+
+        return distance == ShortestPaths.UNREACHABLE ? Graph.NO_TRACE : distance;
+    }
+
+    /**
+     * Indexes of the queries starting from the same service.
+     */
+    private final class Source {
+        private final List<Integer> stops = new ArrayList<>();
+        private final List<Integer> shortest = new ArrayList<>();
+        private final List<Integer> budget = new ArrayList<>();
+
+        private int[] targets(List<Integer> indexes, CompactGraph compact) {
+            int[] to = new int[indexes.size()];
+            for (int i = 0; i < to.length; i++)
+                to[i] = compact.symbols().find(queries.get(indexes.get(i)).getTo());
+
+            return to;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package ua.olena.tracing.graph;
+
+/**
+ * Result of a query with a {@link QueryBudget}. If the budget ran out the value is what was found so far: for
+ * numbers of traces it is a lower bound, for the shortest trace the shortest one found so far or 0.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+public final class QueryResult {
+    public enum Status {
+        COMPLETE, NODES_EXCEEDED, TIME_EXCEEDED, CANCELLED
+    }
+
+    private final long value;
+    private final Status status;
+    private final long expandedNodes;
+
+    QueryResult(long value, Status status, long expandedNodes) {
+        this.value = value;
+        this.status = status;
+        this.expandedNodes = expandedNodes;
+    }
+
+    public long getValue() {
+        return value;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isComplete() {
+        return status == Status.COMPLETE;
+    }
+
+    /**
+     * @return number of nodes the query expanded
+     */
+    public long getExpandedNodes() {
+        return expandedNodes;
+    }
+}
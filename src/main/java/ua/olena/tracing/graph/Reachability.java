@@ -0,0 +1,281 @@
+package ua.olena.tracing.graph;
+
+import java.util.Arrays;
+
+/**
+ * Reverse connections and strongly connected components of the compact graph, used to skip vertexes that can not
+ * reach the destination of a query.
+ * <p>
+ * Components are numbered by Tarjan's algorithm, which finishes a component only after all components reachable
+ * from it, so a vertex can only reach vertexes of components with the same or a smaller number. That check costs
+ * a comparison, exact reachability walks the condensation: the graph of components without the edges inside them.
+ * For counting queries the reverse connections give the minimal number of hops and the minimal latency from every
+ * vertex to the destination, a vertex is not expanded once the rest of the hops or the latency budget is not
+ * enough to reach the destination from it.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+final class Reachability {
+    private final int[] reverseOffsets;
+    private final int[] sources;
+    private final int[] latencies;
+    private final int[] components;
+    private final boolean[] cyclic;
+    private final int[] dagOffsets;
+    private final int[] dagTargets;
+
+    private Reachability(int[] reverseOffsets, int[] sources, int[] latencies, int[] components, boolean[] cyclic,
+                         int[] dagOffsets, int[] dagTargets) {
+        this.reverseOffsets = reverseOffsets;
+        this.sources = sources;
+        this.latencies = latencies;
+        this.components = components;
+        this.cyclic = cyclic;
+        this.dagOffsets = dagOffsets;
+        this.dagTargets = dagTargets;
+    }
+
+    static Reachability of(CompactGraph graph) {
+        int size = graph.vertexCount();
+        int[] reverseOffsets = new int[size + 1];
+        for (int edge = 0; edge < graph.edgeCount(); edge++)
+            reverseOffsets[graph.target(edge) + 1]++;
+        for (int vertex = 0; vertex < size; vertex++)
+            reverseOffsets[vertex + 1] += reverseOffsets[vertex];
+        int[] next = Arrays.copyOf(reverseOffsets, size);
+        int[] sources = new int[graph.edgeCount()];
+        int[] latencies = new int[graph.edgeCount()];
+        for (int vertex = 0; vertex < size; vertex++) {
+            for (int edge = graph.firstEdge(vertex); edge < graph.lastEdge(vertex); edge++) {
+                int slot = next[graph.target(edge)]++;
+                sources[slot] = vertex;
+                latencies[slot] = graph.edgeLatency(edge);
+            }
+        }
+
+        int[] components = new int[size];
+        int count = components(graph, components);
+        boolean[] cyclic = new boolean[count];
+        long[] dagEdges = new long[graph.edgeCount()];
+        int dagSize = 0;
+        for (int vertex = 0; vertex < size; vertex++) {
+            for (int edge = graph.firstEdge(vertex); edge < graph.lastEdge(vertex); edge++) {
+                int from = components[vertex];
+                int to = components[graph.target(edge)];
+                if (from == to)
+                    cyclic[from] = true;
+                else
+                    dagEdges[dagSize++] = (long) from << 32 | to;
+            }
+        }
+        Arrays.sort(dagEdges, 0, dagSize);
+
+        int[] dagOffsets = new int[count + 1];
+        int[] dagTargets = new int[dagSize];
+        int unique = 0;
+        for (int i = 0; i < dagSize; i++) {
+            if (i > 0 && dagEdges[i] == dagEdges[i - 1])
+                continue;
+            dagOffsets[(int) (dagEdges[i] >>> 32) + 1]++;
+            dagTargets[unique++] = (int) dagEdges[i];
+        }
+        for (int component = 0; component < count; component++)
+            dagOffsets[component + 1] += dagOffsets[component];
+
+        return new Reachability(reverseOffsets, sources, latencies, components, cyclic, dagOffsets,
+                Arrays.copyOf(dagTargets, unique));
+    }
+
+    /**
+     * Finds strongly connected components with iterative Tarjan's algorithm.
+     *
+     * @return number of components
+     */
+    static int components(CompactGraph graph, int[] components) {
+        int size = graph.vertexCount();
+        int[] index = new int[size];
+        int[] low = new int[size];
+        boolean[] onStack = new boolean[size];
+        int[] stack = new int[size];
+        int[] path = new int[size];
+        int[] cursor = new int[size];
+        Arrays.fill(index, -1);
+        int counter = 0;
+        int count = 0;
+        int stackSize = 0;
+        for (int root = 0; root < size; root++) {
+            if (index[root] != -1)
+                continue;
+            int depth = 0;
+            path[0] = root;
+            cursor[0] = graph.firstEdge(root);
+            index[root] = low[root] = counter++;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+            while (depth >= 0) {
+                int vertex = path[depth];
+                if (cursor[depth] < graph.lastEdge(vertex)) {
+                    int target = graph.target(cursor[depth]++);
+                    if (index[target] == -1) {
+                        index[target] = low[target] = counter++;
+                        stack[stackSize++] = target;
+                        onStack[target] = true;
+                        path[++depth] = target;
+                        cursor[depth] = graph.firstEdge(target);
+                    } else if (onStack[target]) {
+                        low[vertex] = Math.min(low[vertex], index[target]);
+                    }
+                } else {
+                    if (low[vertex] == index[vertex]) {
+                        int member;
+                        do {
+                            member = stack[--stackSize];
+                            onStack[member] = false;
+                            components[member] = count;
+                        } while (member != vertex);
+                        count++;
+                    }
+                    if (--depth >= 0)
+                        low[path[depth]] = Math.min(low[path[depth]], low[vertex]);
+                }
+            }
+        }
+
+        return count;
+    }
+
+    int firstReverseEdge(int vertex) {
+        return reverseOffsets[vertex];
+    }
+
+    int lastReverseEdge(int vertex) {
+        return reverseOffsets[vertex + 1];
+    }
+
+    /**
+     * @return vertex the reverse edge comes from in the graph
+     */
+    int source(int reverseEdge) {
+        return sources[reverseEdge];
+    }
+
+    int reverseLatency(int reverseEdge) {
+        return latencies[reverseEdge];
+    }
+
+    int component(int vertex) {
+        return components[vertex];
+    }
+
+    /**
+     * @return false if there is no trace with at least one hop between the vertexes
+     */
+    boolean canReach(int from, int to) {
+        int source = components[from];
+        int target = components[to];
+        if (source < target)
+            return false;
+        if (source == target)
+            return from != to || cyclic[source];
+
+        boolean[] visited = new boolean[dagOffsets.length - 1];
+        int[] stack = new int[visited.length];
+        int size = 0;
+        stack[size++] = source;
+        visited[source] = true;
+        while (size > 0) {
+            int component = stack[--size];
+            for (int edge = dagOffsets[component]; edge < dagOffsets[component + 1]; edge++) {
+                int next = dagTargets[edge];
+                if (next == target)
+                    return true;
+                if (next > target && !visited[next]) {
+                    visited[next] = true;
+                    stack[size++] = next;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * For every vertex calculates the last hop it is worth expanding at: a trace passing it later can not reach any
+     * of the destinations within their number of hops.
+     *
+     * @param to ids of the destination vertexes, {@link SymbolTable#NOT_FOUND} is allowed
+     * @param stops number of hops for every destination
+     * @return last hop for every vertex, -1 if the vertex can not reach any destination
+     */
+    int[] hopDeadlines(int[] to, int[] stops) {
+        int size = components.length;
+        int[] deadlines = new int[size];
+        int[] hops = new int[size];
+        int[] seen = new int[size];
+        int[] queue = new int[size];
+        Arrays.fill(deadlines, -1);
+        for (int i = 0; i < to.length; i++) {
+            if (to[i] == SymbolTable.NOT_FOUND)
+                continue;
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = to[i];
+            seen[to[i]] = i + 1;
+            hops[to[i]] = 0;
+            while (head < tail) {
+                int vertex = queue[head++];
+                deadlines[vertex] = Math.max(deadlines[vertex], stops[i] - hops[vertex]);
+                if (hops[vertex] == stops[i])
+                    continue;
+                for (int edge = reverseOffsets[vertex]; edge < reverseOffsets[vertex + 1]; edge++) {
+                    int source = sources[edge];
+                    if (seen[source] != i + 1) {
+                        seen[source] = i + 1;
+                        hops[source] = hops[vertex] + 1;
+                        queue[tail++] = source;
+                    }
+                }
+            }
+        }
+
+        return deadlines;
+    }
+
+    /**
+     * For every vertex calculates the latency a trace must reach it under to be worth expanding: with more latency
+     * the trace can not reach any of the destinations within their budgets.
+     *
+     * @param to ids of the destination vertexes, {@link SymbolTable#NOT_FOUND} is allowed
+     * @param maxLatencies latency budget for every destination
+     * @return latency limit for every vertex, 0 if the vertex can not reach any destination within the budget
+     */
+    int[] latencyDeadlines(int[] to, int[] maxLatencies) {
+        int size = components.length;
+        int[] deadlines = new int[size];
+        int[] settled = new int[size];
+        IntMinHeap heap = new IntMinHeap(size);
+        for (int i = 0; i < to.length; i++) {
+            if (to[i] == SymbolTable.NOT_FOUND)
+                continue;
+            heap.offer(to[i], 0);
+            while (!heap.isEmpty()) {
+                int vertex = heap.poll();
+                long latency = heap.key(vertex);
+                settled[vertex] = i + 1;
+                if (latency >= maxLatencies[i]) {
+                    while (!heap.isEmpty())
+                        heap.poll();
+                    break;
+                }
+                deadlines[vertex] = Math.max(deadlines[vertex], (int) (maxLatencies[i] - latency));
+                for (int edge = reverseOffsets[vertex]; edge < reverseOffsets[vertex + 1]; edge++) {
+                    if (settled[sources[edge]] != i + 1)
+                        heap.offer(sources[edge], latency + latencies[edge]);
+                }
+            }
+        }
+
+        return deadlines;
+    }
+}
@@ -0,0 +1,106 @@
+package ua.olena.tracing.graph;
+
+import java.util.Arrays;
+
+/**
+ * Dijkstra's single-source shortest paths over the compact graph. A trace must contain at least one hop, so the
+ * source itself is not settled at 0: the search starts from its neighbors and the distance to the source is
+ * the latency of the shortest cycle through it.
+ * <p>
+ * Search for a single destination does not enter components of the graph the destination can not be reached from.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+final class ShortestPaths {
+    static final long UNREACHABLE = Long.MAX_VALUE;
+
+    private ShortestPaths() {
+    }
+
+    /**
+     * Calculates minimal latencies from one vertex to all the others.
+     *
+     * @param graph compact graph
+     * @param from id of the source vertex
+     * @return minimal latency for every vertex id, {@link #UNREACHABLE} if there is no trace
+     */
+    static long[] from(CompactGraph graph, int from) {
+        return from(graph, from, BudgetMeter.UNLIMITED);
+    }
+
+    /**
+     * Calculates minimal latencies from one vertex to all the others, stops when the budget runs out. Every settled
+     * vertex is an expanded node, vertexes not settled yet are unreachable if the budget runs out.
+     */
+    static long[] from(CompactGraph graph, int from, BudgetMeter meter) {
+        int size = graph.vertexCount();
+        long[] distances = new long[size];
+        boolean[] settled = new boolean[size];
+        Arrays.fill(distances, UNREACHABLE);
+        IntMinHeap heap = new IntMinHeap(size);
+        relax(graph, from, 0, heap, settled, null, 0);
+
+        while (!heap.isEmpty()) {
+            int vertex = heap.poll();
+            if (!meter.expand(graph.lastEdge(vertex) - graph.firstEdge(vertex)))
+                break;
+            long distance = heap.key(vertex);
+            distances[vertex] = distance;
+            settled[vertex] = true;
+            relax(graph, vertex, distance, heap, settled, null, 0);
+        }
+
+        return distances;
+    }
+
+    /**
+     * Calculates minimal latency between two vertexes, stops as soon as the destination is settled.
+     *
+     * @return minimal latency or {@link #UNREACHABLE} if there is no trace
+     */
+    static long between(CompactGraph graph, int from, int to) {
+        return between(graph, from, to, BudgetMeter.UNLIMITED);
+    }
+
+    /**
+     * Calculates minimal latency between two vertexes, stops when the budget runs out. Every settled vertex is
+     * an expanded node, the shortest trace to the destination found so far is returned if the budget runs out.
+     */
+    static long between(CompactGraph graph, int from, int to, BudgetMeter meter) {
+        Reachability reachability = graph.reachability();
+        if (!reachability.canReach(from, to))
+            return UNREACHABLE;
+        int component = reachability.component(to);
+        int size = graph.vertexCount();
+        boolean[] settled = new boolean[size];
+        IntMinHeap heap = new IntMinHeap(size);
+        relax(graph, from, 0, heap, settled, reachability, component);
+
+        while (!heap.isEmpty()) {
+            int vertex = heap.poll();
+            long distance = heap.key(vertex);
+            if (vertex == to)
+                return distance;
+            if (!meter.expand(graph.lastEdge(vertex) - graph.firstEdge(vertex)))
+                return heap.contains(to) ? heap.key(to) : UNREACHABLE;
+            settled[vertex] = true;
+            relax(graph, vertex, distance, heap, settled, reachability, component);
+        }
+
+        return UNREACHABLE;
+    }
+
+    /**
+     * Offers neighbors of the vertex, skipping components numbered below the destination's one if reachability
+     * is provided: they can not reach the destination.
+     */
+    private static void relax(CompactGraph graph, int vertex, long distance, IntMinHeap heap, boolean[] settled,
+                              Reachability reachability, int component) {
+        for (int edge = graph.firstEdge(vertex); edge < graph.lastEdge(vertex); edge++) {
+            int target = graph.target(edge);
+            if (!settled[target] && (reachability == null || reachability.component(target) >= component))
+                heap.offer(target, distance + graph.edgeLatency(edge));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package ua.olena.tracing.graph;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Minimal latencies between all pairs of vertexes stored in one flat array, row {@code from} holds latencies
+ * from the vertex {@code from} to every vertex. The diagonal holds the shortest cycle through the vertex, as a trace
+ * must contain at least one hop. Rows are calculated in parallel, one shortest path run per source vertex.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+final class ShortestTraceIndex {
+    static final int UNREACHABLE = -1;
+
+    private final int size;
+    private final int[] latencies;
+
+    private ShortestTraceIndex(int size, int[] latencies) {
+        this.size = size;
+        this.latencies = latencies;
+    }
+
+    /**
+     * Calculates the index.
+     *
+     * @param graph compact graph
+     * @param pool pool to run shortest path runs in
+     * @return index of the graph
+     * @throws IllegalArgumentException if the graph is too big for the index
+     * @throws ArithmeticException if one of the latencies does not fit into int
+     */
+    static ShortestTraceIndex build(CompactGraph graph, ForkJoinPool pool) {
+        int size = graph.vertexCount();
+        if ((long) size * size > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("Graph with " + size + " services is too big for the index");
+
+        int[] latencies = new int[size * size];
+        pool.submit(() -> IntStream.range(0, size).parallel().forEach(from -> {
+            long[] distances = ShortestPaths.from(graph, from);
+            int row = from * size;
+            for (int to = 0; to < size; to++) {
+                latencies[row + to] = distances[to] == ShortestPaths.UNREACHABLE
+                        ? UNREACHABLE
+                        : Math.toIntExact(distances[to]);
+            }
+        })).join();
+
+        return new ShortestTraceIndex(size, latencies);
+    }
+
+    /**
+     * @return minimal latency between two vertexes or {@link #UNREACHABLE}
+     */
+    int get(int from, int to) {
+        return latencies[from * size + to];
+    }
+
+    /**
+     * @return minimal latencies from the vertex to every vertex, {@link ShortestPaths#UNREACHABLE} if there is no trace
+     */
+    long[] row(int from) {
+        long[] distances = new long[size];
+        for (int to = 0; to < size; to++) {
+            int latency = get(from, to);
+            distances[to] = latency == UNREACHABLE ? ShortestPaths.UNREACHABLE : latency;
+        }
+
+        return distances;
+    }
+}
@@ -0,0 +1,298 @@
+package ua.olena.tracing.graph;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Graph of the connections observed during the last window of time, e.g. the last 10 minutes of a stream of traces
+ * like AB5@1697040000123.
+ * <p>
+ * The window is split into buckets of equal length. Every connection keeps count, sum, minimum and maximum of its
+ * latencies per bucket in a ring of buckets, so memory does not grow with the number of observations. Time moves
+ * with the newest timestamp observed or by {@link #advanceTo(long)}: once a bucket leaves the window its latencies
+ * are subtracted from the connections that have them, so eviction costs as much as the observations evicted rather
+ * than the whole graph, and a connection without latencies left in the window is removed. Names of services without
+ * connections left are dropped once they outnumber the names still in use, so a stream of ever new services does
+ * not grow the names either. Observations older than the window are dropped.
+ * <p>
+ * Queries run against {@link #snapshot()}, a read-only graph that is only rebuilt after the window has changed.
+ * Percentiles are not kept per bucket, so only {@link Statistic#MEAN}, {@link Statistic#MIN} and
+ * {@link Statistic#MAX} are supported. All methods are thread-safe.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+public class SlidingWindowGraph implements EdgeSink {
+    private static final int DEFAULT_BUCKETS = 60;
+    private static final int MIN_PRUNED_NAMES = 64;
+
+    private final List<WindowEdge> edges = new ArrayList<>();
+    private final List<List<WindowEdge>> bucketEdges = new ArrayList<>();
+    private final int buckets;
+    private final long bucketMillis;
+    private final Statistic statistic;
+    private SymbolTable symbols = new SymbolTable();
+    private EdgeIndex index = new EdgeIndex();
+    private int[] references = new int[16];
+    private int usedNames;
+    private long bucket;
+    private long dropped;
+    private Graph snapshot;
+
+    /**
+     * @param window length of the window, split into 60 buckets
+     */
+    public SlidingWindowGraph(Duration window) {
+        this(window, DEFAULT_BUCKETS, Statistic.MEAN);
+    }
+
+    /**
+     * @param window length of the window
+     * @param buckets number of buckets the window is split into, observations leave the window a bucket at a time
+     * @param statistic statistic of the latencies in the window that queries use as latency of a connection
+     */
+    public SlidingWindowGraph(Duration window, int buckets, Statistic statistic) {
+        if (buckets < 1)
+            throw new IllegalArgumentException("Number of buckets must be positive: " + buckets);
+        if (window.toMillis() < buckets)
+            throw new IllegalArgumentException("Window must be at least one millisecond per bucket: " + window);
+        if (statistic != Statistic.MEAN && statistic != Statistic.MIN && statistic != Statistic.MAX)
+            throw new IllegalArgumentException("Statistic is not supported by the sliding window: " + statistic);
+
+        this.buckets = buckets;
+        this.bucketMillis = window.toMillis() / buckets;
+        this.statistic = statistic;
+        for (int i = 0; i < buckets; i++)
+            bucketEdges.add(new ArrayList<>());
+    }
+
+    /**
+     * Adds connection observed now: at the newest time of the window, time 0 until a time is observed.
+     */
+    @Override
+    public synchronized void addEdge(String from, String to, int latency) {
+        checkLatency(from, to, latency);
+        add(from, to, latency, bucket);
+    }
+
+    /**
+     * Adds connection observed at the time, moves the window forward if the time is newer than the window.
+     */
+    @Override
+    public synchronized void addEdge(String from, String to, int latency, long timestamp) {
+        checkLatency(from, to, latency);
+        long observed = Math.floorDiv(timestamp, bucketMillis);
+        if (observed > bucket)
+            advance(observed);
+        if (observed <= bucket - buckets) {
+            dropped++;
+            return;
+        }
+
+        add(from, to, latency, observed);
+    }
+
+    /**
+     * Moves the window forward to end at the time, e.g. to evict connections while nothing is observed.
+     *
+     * @param timestamp time in milliseconds since the epoch, older times are ignored
+     */
+    public synchronized void advanceTo(long timestamp) {
+        long observed = Math.floorDiv(timestamp, bucketMillis);
+        if (observed > bucket)
+            advance(observed);
+    }
+
+    /**
+     * @return read-only graph of the connections in the window
+     */
+    public synchronized Graph snapshot() {
+        if (snapshot == null) {
+            SymbolTable names = new SymbolTable();
+            List<Edge> live = new ArrayList<>(edges.size());
+            for (WindowEdge edge : edges) {
+                live.add(new Edge(names.intern(symbols.name(edge.from)), names.intern(symbols.name(edge.to)),
+                        edge.getLatency()));
+            }
+            snapshot = new Graph(CompactGraph.of(names, live, Statistic.MEAN), statistic).readOnly();
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * @return number of connections in the window
+     */
+    public synchronized int getEdgeCount() {
+        return edges.size();
+    }
+
+    /**
+     * @return number of observations dropped because they were older than the window
+     */
+    public synchronized long getDroppedObservations() {
+        return dropped;
+    }
+
+    /**
+     * @return number of names kept, including names without connections that are not dropped yet
+     */
+    synchronized int getNameCount() {
+        return symbols.size();
+    }
+
+    private static void checkLatency(String from, String to, int latency) {
+        if (latency < 0)
+            throw new IllegalArgumentException("Latency must not be negative: " + from + "-" + to + " " + latency);
+    }
+
+    private void add(String from, String to, int latency, long observed) {
+        int fromId = symbols.intern(from);
+        int toId = symbols.intern(to);
+        int position = index.putIfAbsent(fromId, toId, edges.size());
+        WindowEdge edge;
+        if (position == EdgeIndex.NOT_FOUND) {
+            edge = new WindowEdge(fromId, toId);
+            edges.add(edge);
+            reference(fromId);
+            reference(toId);
+        } else {
+            edge = edges.get(position);
+        }
+        int slot = (int) Math.floorMod(observed, (long) buckets);
+        if (edge.counts[slot] == 0)
+            bucketEdges.get(slot).add(edge);
+        edge.add(slot, latency);
+        snapshot = null;
+    }
+
+    /**
+     * Evicts the buckets leaving the window when it moves to end at the bucket.
+     */
+    private void advance(long observed) {
+        long expired = Math.min(observed - bucket, buckets);
+        for (long i = 1; i <= expired; i++)
+            evict((int) Math.floorMod(bucket + i, (long) buckets));
+        bucket = observed;
+    }
+
+    private void evict(int slot) {
+        List<WindowEdge> evicted = bucketEdges.get(slot);
+        if (evicted.isEmpty())
+            return;
+
+        for (WindowEdge edge : evicted) {
+            edge.evict(slot);
+            if (edge.count == 0)
+                remove(edge);
+        }
+        evicted.clear();
+        if (symbols.size() - usedNames > Math.max(usedNames, MIN_PRUNED_NAMES))
+            pruneNames();
+        snapshot = null;
+    }
+
+    /**
+     * Removes the connection, moving the last one into its position.
+     */
+    private void remove(WindowEdge edge) {
+        int position = index.remove(edge.from, edge.to);
+        WindowEdge last = edges.remove(edges.size() - 1);
+        if (last != edge) {
+            edges.set(position, last);
+            index.remove(last.from, last.to);
+            index.putIfAbsent(last.from, last.to, position);
+        }
+        release(edge.from);
+        release(edge.to);
+    }
+
+    private void reference(int name) {
+        if (name >= references.length)
+            references = Arrays.copyOf(references, Math.max(name + 1, references.length * 2));
+        if (references[name]++ == 0)
+            usedNames++;
+    }
+
+    private void release(int name) {
+        if (--references[name] == 0)
+            usedNames--;
+    }
+
+    /**
+     * Rebuilds the names from the connections in the window, renumbering services of the connections.
+     */
+    private void pruneNames() {
+        SymbolTable names = new SymbolTable();
+        EdgeIndex positions = new EdgeIndex();
+        references = new int[Math.max(16, usedNames)];
+        usedNames = 0;
+        for (int position = 0; position < edges.size(); position++) {
+            WindowEdge edge = edges.get(position);
+            edge.from = names.intern(symbols.name(edge.from));
+            edge.to = names.intern(symbols.name(edge.to));
+            positions.putIfAbsent(edge.from, edge.to, position);
+            reference(edge.from);
+            reference(edge.to);
+        }
+        symbols = names;
+        index = positions;
+    }
+
+    /**
+     * Latencies of one connection in every bucket of the window.
+     */
+    private final class WindowEdge {
+        private int from;
+        private int to;
+        private final long[] counts = new long[buckets];
+        private final long[] sums = new long[buckets];
+        private final int[] mins = new int[buckets];
+        private final int[] maxs = new int[buckets];
+        private long count;
+        private long sum;
+
+        private WindowEdge(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        private void add(int slot, int latency) {
+            if (counts[slot] == 0) {
+                mins[slot] = latency;
+                maxs[slot] = latency;
+            } else {
+                mins[slot] = Math.min(mins[slot], latency);
+                maxs[slot] = Math.max(maxs[slot], latency);
+            }
+            counts[slot]++;
+            sums[slot] += latency;
+            count++;
+            sum += latency;
+        }
+
+        private void evict(int slot) {
+            count -= counts[slot];
+            sum -= sums[slot];
+            counts[slot] = 0;
+            sums[slot] = 0;
+        }
+
+        private int getLatency() {
+            if (statistic == Statistic.MEAN)
+                return (int) Math.round((double) sum / count);
+
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            for (int slot = 0; slot < buckets; slot++) {
+                if (counts[slot] > 0) {
+                    min = Math.min(min, mins[slot]);
+                    max = Math.max(max, maxs[slot]);
+                }
+            }
+            return statistic == Statistic.MIN ? min : max;
+        }
+    }
+}
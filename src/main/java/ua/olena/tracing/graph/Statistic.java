@@ -0,0 +1,11 @@
+package ua.olena.tracing.graph;
+
+/**
+ * Statistic of the latencies observed for a connection that queries use as its latency.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+public enum Statistic {
+    MEAN, MIN, MAX, P50, P99;
+}
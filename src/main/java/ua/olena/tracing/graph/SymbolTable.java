@@ -0,0 +1,148 @@
+package ua.olena.tracing.graph;
+
+import java.util.Arrays;
+
+/**
+ * Maps service names to dense int ids starting from 0. Names can be looked up by a region of any char sequence or
+ * byte array, so a path like A-B-C is resolved without creating a substring for every service.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+final class SymbolTable {
+    static final int NOT_FOUND = -1;
+
+    private String[] names = new String[16];
+    private int[] hashes = new int[16];
+    private int[] slots = new int[32];
+    private int size;
+
+    /**
+     * Returns id of the name, assigning the next free one if the name was not seen before.
+     *
+     * @param name service name
+     * @return id of the service
+     */
+    int intern(String name) {
+        int hash = hash(name, 0, name.length());
+        int slot = hash & (slots.length - 1);
+        while (slots[slot] != 0) {
+            int id = slots[slot] - 1;
+            if (hashes[id] == hash && names[id].equals(name))
+                return id;
+            slot = (slot + 1) & (slots.length - 1);
+        }
+
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        names[size] = name;
+        hashes[size] = hash;
+        slots[slot] = ++size;
+        if (size * 2 > slots.length)
+            rehash();
+
+        return size - 1;
+    }
+
+    /**
+     * Finds id of the name stored in the region of the provided sequence.
+     *
+     * @param chars sequence containing the name
+     * @param start index of the first char of the name
+     * @param end index after the last char of the name
+     * @return id of the service or {@link #NOT_FOUND}
+     */
+    int find(CharSequence chars, int start, int end) {
+        int hash = hash(chars, start, end);
+        int slot = hash & (slots.length - 1);
+        while (slots[slot] != 0) {
+            int id = slots[slot] - 1;
+            if (hashes[id] == hash && regionEquals(names[id], chars, start, end))
+                return id;
+            slot = (slot + 1) & (slots.length - 1);
+        }
+
+        return NOT_FOUND;
+    }
+
+    /**
+     * Finds id of the name stored as ASCII bytes in the region of the array. Names are never matched by bytes
+     * outside of ASCII.
+     *
+     * @return id of the service or {@link #NOT_FOUND}
+     */
+    int find(byte[] chars, int start, int end) {
+        int hash = hash(chars, start, end);
+        int slot = hash & (slots.length - 1);
+        while (slots[slot] != 0) {
+            int id = slots[slot] - 1;
+            if (hashes[id] == hash && regionEquals(names[id], chars, start, end))
+                return id;
+            slot = (slot + 1) & (slots.length - 1);
+        }
+
+        return NOT_FOUND;
+    }
+
+    int find(String name) {
+        return name == null ? NOT_FOUND : find(name, 0, name.length());
+    }
+
+    String name(int id) {
+        return names[id];
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        for (int id = 0; id < size; id++) {
+            int slot = hashes[id] & (slots.length - 1);
+            while (slots[slot] != 0)
+                slot = (slot + 1) & (slots.length - 1);
+            slots[slot] = id + 1;
+        }
+    }
+
+    private static int hash(CharSequence chars, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++)
+            hash = 31 * hash + chars.charAt(i);
+
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int hash(byte[] chars, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++)
+            hash = 31 * hash + chars[i];
+
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean regionEquals(String name, byte[] chars, int start, int end) {
+        if (name.length() != end - start)
+            return false;
+        for (int i = 0; i < name.length(); i++) {
+            if (chars[start + i] < 0 || name.charAt(i) != chars[start + i])
+                return false;
+        }
+
+        return true;
+    }
+
+    private static boolean regionEquals(String name, CharSequence chars, int start, int end) {
+        if (name.length() != end - start)
+            return false;
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != chars.charAt(start + i))
+                return false;
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,85 @@
+package ua.olena.tracing.graph;
+
+import java.util.Arrays;
+
+/**
+ * One trace found by the enumeration of traces: services it passes through and its total latency. Services are kept
+ * as int ids in a buffer that the enumeration reuses, so the same object is changed when the next trace is found.
+ * Use {@link #copy()} or {@link #toString()} to keep the trace.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+public final class Trace {
+    private final SymbolTable symbols;
+    private int[] services;
+    private int size;
+    private long latency;
+
+    Trace(SymbolTable symbols) {
+        this.symbols = symbols;
+    }
+
+    void set(int[] services, int size, long latency) {
+        this.services = services;
+        this.size = size;
+        this.latency = latency;
+    }
+
+    /**
+     * @return number of services in the trace including the first and the last one
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return number of connections in the trace
+     */
+    public int getHops() {
+        return size - 1;
+    }
+
+    public String getService(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+
+        return symbols.name(services[index]);
+    }
+
+    /**
+     * @return sum of latencies of the connections in the trace
+     */
+    public long getLatency() {
+        return latency;
+    }
+
+    /**
+     * @return trace that is not changed by the enumeration
+     */
+    public Trace copy() {
+        Trace copy = new Trace(symbols);
+        copy.set(Arrays.copyOf(services, size), size, latency);
+        return copy;
+    }
+
+    /**
+     * @return trace like A-B-C, or like auth-svc&gt;billing-svc if one of the names contains a dash
+     */
+    @Override
+    public String toString() {
+        char separator = '-';
+        for (int i = 0; i < size; i++) {
+            if (symbols.name(services[i]).indexOf('-') >= 0)
+                separator = '>';
+        }
+
+        StringBuilder trace = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            if (i > 0)
+                trace.append(separator);
+            trace.append(symbols.name(services[i]));
+        }
+        return trace.toString();
+    }
+}
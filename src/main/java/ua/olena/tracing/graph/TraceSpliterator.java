@@ -0,0 +1,178 @@
+package ua.olena.tracing.graph;
+
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Enumerates walks between two services one at a time with a depth-first search over the compact graph. The search
+ * keeps the current walk, the next edge to try and the last edge of every level in int arrays, so it can be stopped
+ * after any trace and continued later.
+ * <p>
+ * Splitting gives away the upper half of the untried edges at the lowest level that has at least two of them,
+ * together with the walk leading to that level, so both parts enumerate disjoint traces.
+ * <p>
+ * Vertexes that can not reach the destination within the rest of the hops or of the latency are not visited, see
+ * {@link Reachability#hopDeadlines(int[], int[])} and {@link Reachability#latencyDeadlines(int[], int[])}. Only
+ * edges into vertexes worth visiting are counted when splitting, so a split-off part is never a dead subtree.
+ * Without a limit of hops a walk reaching a cycle of connections with zero latency that can still reach the
+ * destination goes around it forever, such a vertex stops the enumeration like it stops the counting.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+final class TraceSpliterator implements Spliterator<Trace> {
+    private final CompactGraph graph;
+    private final int to;
+    private final int minHops;
+    private final int maxHops;
+    private final long maxLatency;
+    private final int[] hopDeadlines;
+    private final int[] latencyDeadlines;
+    private final ZeroLatencyOrder zeroLatency;
+    private final Trace trace;
+    private final int base;
+    private int[] path;
+    private int[] cursor;
+    private int[] end;
+    private long[] latency;
+    private int depth;
+    private boolean emptyTrace;
+
+    /**
+     * @param minHops minimal number of hops of a trace, with 0 the trace of the single service is found if both
+     * services are the same
+     * @param maxHops maximal number of hops of a trace
+     * @param maxLatency traces have total latency less than this number, must be limited if the number of hops is
+     * {@link Integer#MAX_VALUE}
+     */
+    TraceSpliterator(CompactGraph graph, int from, int to, int minHops, int maxHops, long maxLatency) {
+        this.graph = graph;
+        this.to = to;
+        this.minHops = minHops;
+        this.maxHops = maxHops;
+        this.maxLatency = maxLatency;
+        Reachability reachability = graph.reachability();
+        hopDeadlines = reachability.hopDeadlines(new int[]{to}, new int[]{maxHops});
+        latencyDeadlines = maxLatency <= Integer.MAX_VALUE
+                ? reachability.latencyDeadlines(new int[]{to}, new int[]{(int) maxLatency})
+                : null;
+        zeroLatency = maxHops == Integer.MAX_VALUE ? graph.zeroLatencyOrder() : null;
+        this.trace = new Trace(graph.symbols());
+        path = new int[16];
+        cursor = new int[16];
+        end = new int[16];
+        latency = new long[16];
+        path[0] = from;
+        cursor[0] = graph.firstEdge(from);
+        end[0] = graph.lastEdge(from);
+        base = 0;
+        emptyTrace = minHops == 0 && from == to;
+    }
+
+    private TraceSpliterator(TraceSpliterator parent, int level, int split) {
+        this.graph = parent.graph;
+        this.to = parent.to;
+        this.minHops = parent.minHops;
+        this.maxHops = parent.maxHops;
+        this.maxLatency = parent.maxLatency;
+        this.hopDeadlines = parent.hopDeadlines;
+        this.latencyDeadlines = parent.latencyDeadlines;
+        this.zeroLatency = parent.zeroLatency;
+        this.trace = new Trace(graph.symbols());
+        path = Arrays.copyOf(parent.path, parent.path.length);
+        cursor = Arrays.copyOf(parent.cursor, parent.path.length);
+        end = Arrays.copyOf(parent.end, parent.path.length);
+        latency = Arrays.copyOf(parent.latency, parent.path.length);
+        cursor[level] = split;
+        parent.end[level] = split;
+        depth = level;
+        base = level;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Trace> action) {
+        if (emptyTrace) {
+            emptyTrace = false;
+            trace.set(path, 1, 0);
+            action.accept(trace);
+            return true;
+        }
+        while (depth >= base) {
+            if (depth == maxHops || cursor[depth] == end[depth]) {
+                depth--;
+                continue;
+            }
+
+            int edge = cursor[depth]++;
+            if (!worthVisiting(depth, edge))
+                continue;
+
+            int next = graph.target(edge);
+            if (zeroLatency != null && zeroLatency.isCyclic(next))
+                throw graph.infiniteTraces(next);
+            long total = latency[depth] + graph.edgeLatency(edge);
+            if (++depth == path.length) {
+                path = Arrays.copyOf(path, depth * 2);
+                cursor = Arrays.copyOf(cursor, depth * 2);
+                end = Arrays.copyOf(end, depth * 2);
+                latency = Arrays.copyOf(latency, depth * 2);
+            }
+            path[depth] = next;
+            cursor[depth] = graph.firstEdge(next);
+            end[depth] = graph.lastEdge(next);
+            latency[depth] = total;
+            if (next == to && depth >= minHops) {
+                trace.set(path, depth + 1, total);
+                action.accept(trace);
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public Spliterator<Trace> trySplit() {
+        for (int level = base; level <= depth && level < maxHops; level++) {
+            int live = 0;
+            for (int edge = cursor[level]; edge < end[level]; edge++) {
+                if (worthVisiting(level, edge))
+                    live++;
+            }
+            if (live < 2)
+                continue;
+
+            int split = cursor[level];
+            for (int skipped = 0; skipped < live / 2; split++) {
+                if (worthVisiting(level, split))
+                    skipped++;
+            }
+            return new TraceSpliterator(this, level, split);
+        }
+
+        return null;
+    }
+
+    /**
+     * @return false if the destination can not be reached within the limits through the edge from the level
+     */
+    private boolean worthVisiting(int level, int edge) {
+        int next = graph.target(edge);
+        if (level + 1 > hopDeadlines[next])
+            return false;
+
+        long total = latency[level] + graph.edgeLatency(edge);
+        return latencyDeadlines == null ? total < maxLatency : total < latencyDeadlines[next];
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return NONNULL;
+    }
+}
@@ -0,0 +1,93 @@
+package ua.olena.tracing.graph;
+
+import java.util.Arrays;
+
+/**
+ * Order of vertexes along connections with zero latency, used by dynamic programming over latency to follow these
+ * connections inside a row. Vertexes are sorted by the strongly connected components of the connections with zero
+ * latency in reverse order of Tarjan's numbering, so such a connection never leads to an earlier vertex unless it
+ * stays inside a cycle of them. Vertexes on these cycles are marked: a trace reaching one of them can go around the
+ * cycle any number of times without latency.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+final class ZeroLatencyOrder {
+    private static final ZeroLatencyOrder NONE = new ZeroLatencyOrder(null, null);
+
+    private final int[] order;
+    private final boolean[] cyclic;
+
+    private ZeroLatencyOrder(int[] order, boolean[] cyclic) {
+        this.order = order;
+        this.cyclic = cyclic;
+    }
+
+    static ZeroLatencyOrder of(CompactGraph graph) {
+        int size = graph.vertexCount();
+        int[] offsets = new int[size + 1];
+        for (int vertex = 0; vertex < size; vertex++) {
+            for (int edge = graph.firstEdge(vertex); edge < graph.lastEdge(vertex); edge++) {
+                if (graph.edgeLatency(edge) == 0)
+                    offsets[vertex + 1]++;
+            }
+        }
+        for (int vertex = 0; vertex < size; vertex++)
+            offsets[vertex + 1] += offsets[vertex];
+        if (offsets[size] == 0)
+            return NONE;
+
+        int[] targets = new int[offsets[size]];
+        boolean[] cyclic = new boolean[size];
+        for (int vertex = 0, next = 0; vertex < size; vertex++) {
+            for (int edge = graph.firstEdge(vertex); edge < graph.lastEdge(vertex); edge++) {
+                if (graph.edgeLatency(edge) == 0) {
+                    targets[next++] = graph.target(edge);
+                    cyclic[vertex] |= graph.target(edge) == vertex;
+                }
+            }
+        }
+        CompactGraph zero = new CompactGraph(graph.symbols(), offsets, targets, new int[targets.length]);
+        int[] components = new int[size];
+        int count = Reachability.components(zero, components);
+
+        int[] starts = new int[count + 1];
+        for (int component : components)
+            starts[count - component]++;
+        for (int i = 0; i < count; i++)
+            starts[i + 1] += starts[i];
+        int[] order = new int[size];
+        int[] next = Arrays.copyOf(starts, count);
+        for (int vertex = 0; vertex < size; vertex++)
+            order[next[count - 1 - components[vertex]]++] = vertex;
+        for (int i = 0; i < count; i++) {
+            if (starts[i + 1] - starts[i] > 1) {
+                for (int position = starts[i]; position < starts[i + 1]; position++)
+                    cyclic[order[position]] = true;
+            }
+        }
+
+        return new ZeroLatencyOrder(order, cyclic);
+    }
+
+    /**
+     * @return false if the graph has no connections with zero latency, the order is the order of ids then
+     */
+    boolean hasZeroLatency() {
+        return order != null;
+    }
+
+    /**
+     * @return vertex at the position of the order
+     */
+    int vertex(int position) {
+        return order == null ? position : order[position];
+    }
+
+    /**
+     * @return true if the vertex is on a cycle of connections with zero latency
+     */
+    boolean isCyclic(int vertex) {
+        return cyclic != null && cyclic[vertex];
+    }
+}
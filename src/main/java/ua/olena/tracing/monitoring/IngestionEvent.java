@@ -0,0 +1,38 @@
+package ua.olena.tracing.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event of reading one file of traces.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+@Name("ua.olena.tracing.Ingestion")
+@Label("Trace Ingestion")
+@Category("Tracing")
+@Description("File of traces read into graphs")
+@StackTrace(false)
+public final class IngestionEvent extends jdk.jfr.Event {
+    @Label("Path")
+    public String path;
+
+    @Label("Lines")
+    public long lines;
+
+    @Label("Edges")
+    public long edges;
+
+    @Label("Parse Failures")
+    public long failures;
+
+    @Label("Lines per Second")
+    public double linesPerSecond;
+
+    @Label("Edges per Second")
+    public double edgesPerSecond;
+}
@@ -0,0 +1,48 @@
+package ua.olena.tracing.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event of one query calculated by a graph or of a whole query plan, queries answered from the cache or
+ * the index are not recorded.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+@Name("ua.olena.tracing.Query")
+@Label("Graph Query")
+@Category("Tracing")
+@Description("Query calculated by a graph of services")
+@StackTrace(false)
+public final class QueryEvent extends jdk.jfr.Event {
+    @Label("Type")
+    @Description("Type of the query or PLAN")
+    public String type;
+
+    @Label("From")
+    public String from;
+
+    @Label("To")
+    public String to;
+
+    @Label("Vertices Expanded")
+    public long verticesExpanded;
+
+    @Label("Edges Relaxed")
+    public long edgesRelaxed;
+
+    @Label("Max Depth")
+    @Description("Deepest level of a search, number of hops for counters of traces")
+    public int maxDepth;
+
+    @Label("Result")
+    @Description("Number of traces, latency of the shortest trace or number of queries in the plan")
+    public long result;
+
+    @Label("Status")
+    public String status;
+}
@@ -0,0 +1,103 @@
+package ua.olena.tracing.monitoring;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process counters of queries and ingestion, e.g. to export them to a metrics system. Counters are disabled
+ * by default, queries are only measured while the counters are enabled or the {@link QueryEvent} is recorded.
+ * Rates are calculated from the totals, e.g. lines per second as {@code getLines() / getIngestionNanos() * 1e9}.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+public final class TracingMetrics {
+    private static final LongAdder QUERIES = new LongAdder();
+    private static final LongAdder QUERY_NANOS = new LongAdder();
+    private static final LongAdder VERTICES_EXPANDED = new LongAdder();
+    private static final LongAdder EDGES_RELAXED = new LongAdder();
+    private static final LongAdder LINES = new LongAdder();
+    private static final LongAdder EDGES = new LongAdder();
+    private static final LongAdder PARSE_FAILURES = new LongAdder();
+    private static final LongAdder INGESTION_NANOS = new LongAdder();
+    private static volatile boolean enabled;
+
+    private TracingMetrics() {
+    }
+
+    public static void enable() {
+        enabled = true;
+    }
+
+    public static void disable() {
+        enabled = false;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets all counters to 0.
+     */
+    public static void reset() {
+        for (LongAdder counter : new LongAdder[]{QUERIES, QUERY_NANOS, VERTICES_EXPANDED, EDGES_RELAXED, LINES, EDGES,
+                PARSE_FAILURES, INGESTION_NANOS})
+            counter.reset();
+    }
+
+    /**
+     * Adds one calculated query, does nothing if the counters are disabled.
+     */
+    public static void recordQuery(long nanos, long verticesExpanded, long edgesRelaxed) {
+        if (enabled) {
+            QUERIES.increment();
+            QUERY_NANOS.add(nanos);
+            VERTICES_EXPANDED.add(verticesExpanded);
+            EDGES_RELAXED.add(edgesRelaxed);
+        }
+    }
+
+    /**
+     * Adds one read file, does nothing if the counters are disabled.
+     */
+    public static void recordIngestion(long nanos, long lines, long edges, long failures) {
+        if (enabled) {
+            INGESTION_NANOS.add(nanos);
+            LINES.add(lines);
+            EDGES.add(edges);
+            PARSE_FAILURES.add(failures);
+        }
+    }
+
+    public static long getQueries() {
+        return QUERIES.sum();
+    }
+
+    public static long getQueryNanos() {
+        return QUERY_NANOS.sum();
+    }
+
+    public static long getVerticesExpanded() {
+        return VERTICES_EXPANDED.sum();
+    }
+
+    public static long getEdgesRelaxed() {
+        return EDGES_RELAXED.sum();
+    }
+
+    public static long getLines() {
+        return LINES.sum();
+    }
+
+    public static long getEdges() {
+        return EDGES.sum();
+    }
+
+    public static long getParseFailures() {
+        return PARSE_FAILURES.sum();
+    }
+
+    public static long getIngestionNanos() {
+        return INGESTION_NANOS.sum();
+    }
+}
@@ -0,0 +1,39 @@
+package ua.olena.tracing.server;
+
+import ua.olena.tracing.graph.EdgeSink;
+
+import java.util.Arrays;
+
+/**
+ * Keeps uploaded connections until the whole upload is read, so a wrong trace rejects the upload entirely.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+final class EdgeBatch implements EdgeSink {
+    private String[] froms = new String[16];
+    private String[] tos = new String[16];
+    private int[] latencies = new int[16];
+    private int size;
+
+    @Override
+    public void addEdge(String from, String to, int latency) {
+        if (size == latencies.length) {
+            froms = Arrays.copyOf(froms, size * 2);
+            tos = Arrays.copyOf(tos, size * 2);
+            latencies = Arrays.copyOf(latencies, size * 2);
+        }
+        froms[size] = from;
+        tos[size] = to;
+        latencies[size++] = latency;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void addTo(EdgeSink sink) {
+        for (int i = 0; i < size; i++)
+            sink.addEdge(froms[i], tos[i], latencies[i]);
+    }
+}
@@ -0,0 +1,292 @@
+package ua.olena.tracing.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import ua.olena.tracing.file.QueryReader;
+import ua.olena.tracing.file.TraceReader;
+import ua.olena.tracing.graph.CancellationToken;
+import ua.olena.tracing.graph.ConcurrentGraph;
+import ua.olena.tracing.graph.Graph;
+import ua.olena.tracing.graph.Query;
+import ua.olena.tracing.graph.QueryBudget;
+import ua.olena.tracing.graph.QueryPlan;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Answers queries about a graph over HTTP, so the graph is built once and queried many times.
+ * <ul>
+ * <li>{@code GET /query?q=shortest+A+C} answers one query written the same way as in a query file,
+ * e.g. {@code {"result":9}}</li>
+ * <li>{@code POST /query} answers queries from the body, one per line, together,
+ * e.g. {@code {"results":[9,"NO SUCH TRACE"]}}</li>
+ * <li>{@code POST /edges} adds traces from the body written the same way as in a trace file, e.g.
+ * {@code {"edges":3,"epoch":2}} with the epoch of the snapshot published last. The upload is rejected entirely if
+ * one of the traces is wrong.</li>
+ * </ul>
+ * Uploaded edges are published for the following queries periodically, or at once when enough of them are waiting,
+ * rather than after every upload: publishing merges the whole graph. Wrong requests are answered with 400 and
+ * {@code {"error":"..."}}, bodies of queries larger than {@link #MAX_QUERY_BYTES} and uploads larger than
+ * {@link #MAX_EDGE_BYTES} with 413: an upload is read entirely before it is applied. Queries are calculated by a
+ * bounded pool of workers, if all of them are busy and their queue is full or a query is not answered in time the
+ * request is answered with 503 and the calculation is cancelled.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+public final class QueryServer {
+    static final int MAX_QUERY_BYTES = 1 << 20;
+    static final int MAX_EDGE_BYTES = 1 << 23;
+    private static final int QUEUED_PER_THREAD = 16;
+    private static final long PUBLISH_MILLIS = 1000;
+    private static final long PUBLISH_EDGES = 10_000;
+
+    private final ConcurrentGraph graph;
+    private final long timeoutMillis;
+    private final long publishMillis;
+    private final long publishEdges;
+    private final AtomicLong pendingEdges = new AtomicLong();
+    private final QueryReader queryReader = new QueryReader();
+    private final HttpServer server;
+    private final ExecutorService handlers;
+    private final ThreadPoolExecutor workers;
+    private final ScheduledExecutorService publisher = Executors.newSingleThreadScheduledExecutor();
+
+    /**
+     * Creates server bound to the address, it does not accept requests until started.
+     *
+     * @param graph graph to query, queries run against its last published snapshot
+     * @param address address to listen on, port 0 picks a free port
+     * @param threads number of threads reading requests and number of threads calculating queries
+     * @param timeoutMillis time to wait for the answer of a request
+     */
+    public QueryServer(ConcurrentGraph graph, InetSocketAddress address, int threads, long timeoutMillis)
+            throws IOException {
+        this(graph, address, threads, timeoutMillis, PUBLISH_MILLIS, PUBLISH_EDGES);
+    }
+
+    /**
+     * Creates server bound to the address that publishes uploaded edges with the provided delay.
+     *
+     * @param publishMillis time uploaded edges wait for publishing at most
+     * @param publishEdges number of uploaded edges waiting for publishing that are published at once
+     */
+    public QueryServer(ConcurrentGraph graph, InetSocketAddress address, int threads, long timeoutMillis,
+                       long publishMillis, long publishEdges) throws IOException {
+        if (threads < 1)
+            throw new IllegalArgumentException("Number of threads must be positive: " + threads);
+        if (timeoutMillis < 1)
+            throw new IllegalArgumentException("Timeout must be positive: " + timeoutMillis);
+        if (publishMillis < 1 || publishEdges < 1)
+            throw new IllegalArgumentException("Publishing delay and number of edges must be positive: "
+                    + publishMillis + " ms, " + publishEdges + " edges");
+
+        this.graph = graph;
+        this.timeoutMillis = timeoutMillis;
+        this.publishMillis = publishMillis;
+        this.publishEdges = publishEdges;
+        this.handlers = Executors.newFixedThreadPool(threads);
+        this.workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * QUEUED_PER_THREAD));
+        this.server = HttpServer.create(address, 0);
+        server.setExecutor(handlers);
+        server.createContext("/query", this::query);
+        server.createContext("/edges", this::edges);
+    }
+
+    public void start() {
+        publisher.scheduleWithFixedDelay(this::publishPending, publishMillis, publishMillis, TimeUnit.MILLISECONDS);
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests and waits up to a second for the requests being answered.
+     */
+    public void stop() {
+        server.stop(1);
+        handlers.shutdownNow();
+        workers.shutdownNow();
+        publisher.shutdownNow();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void query(HttpExchange exchange) throws IOException {
+        try {
+            List<String> lines;
+            boolean single = "GET".equals(exchange.getRequestMethod());
+            if (single) {
+                lines = List.of(parameter(exchange.getRequestURI(), "q"));
+            } else if ("POST".equals(exchange.getRequestMethod())) {
+                byte[] body = exchange.getRequestBody().readNBytes(MAX_QUERY_BYTES + 1);
+                if (body.length > MAX_QUERY_BYTES) {
+                    send(exchange, 413, error("Queries are larger than " + MAX_QUERY_BYTES + " bytes"));
+                    return;
+                }
+                lines = new String(body, StandardCharsets.UTF_8).lines().collect(Collectors.toList());
+            } else {
+                send(exchange, 405, error("Method is not allowed: " + exchange.getRequestMethod()));
+                return;
+            }
+
+            List<Query> queries = queryReader.parseQueries(lines);
+            if (single && queries.isEmpty())
+                throw new IllegalArgumentException("Wrong query: " + lines.get(0));
+            Graph snapshot = graph.snapshot();
+            CancellationToken token = new CancellationToken();
+            QueryBudget budget = QueryBudget.unlimited().withCancellation(token);
+            String[] results = calculate(() -> new QueryPlan(queries).execute(snapshot, budget), token);
+            StringBuilder json = new StringBuilder(single ? "{\"result\":" : "{\"results\":[");
+            for (int i = 0; i < results.length; i++) {
+                if (i > 0)
+                    json.append(',');
+                value(json, results[i]);
+            }
+            send(exchange, 200, json.append(single ? "}" : "]}").toString());
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            send(exchange, 400, error(e.getMessage()));
+        } catch (RejectedExecutionException e) {
+            send(exchange, 503, error("Server is busy"));
+        } catch (TimeoutException e) {
+            send(exchange, 503, error("Query is not answered in " + timeoutMillis + " ms"));
+        } catch (RuntimeException e) {
+            send(exchange, 500, error(String.valueOf(e.getMessage())));
+        }
+    }
+
+    private void edges(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            send(exchange, 405, error("Method is not allowed: " + exchange.getRequestMethod()));
+            return;
+        }
+
+        byte[] body = exchange.getRequestBody().readNBytes(MAX_EDGE_BYTES + 1);
+        if (body.length > MAX_EDGE_BYTES) {
+            send(exchange, 413, error("Traces are larger than " + MAX_EDGE_BYTES + " bytes"));
+            return;
+        }
+
+        try (TraceReader reader = new TraceReader(Channels.newChannel(new ByteArrayInputStream(body)))) {
+            EdgeBatch batch = new EdgeBatch();
+            while (reader.next(batch)) {
+                // every line is read into the same batch
+            }
+            batch.addTo(graph);
+            if (pendingEdges.addAndGet(batch.size()) >= publishEdges)
+                publishPending();
+            send(exchange, 200, "{\"edges\":" + batch.size() + ",\"epoch\":" + graph.getEpoch() + "}");
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            send(exchange, 400, error(e.getMessage()));
+        } catch (RuntimeException e) {
+            send(exchange, 500, error(String.valueOf(e.getMessage())));
+        }
+    }
+
+    /**
+     * Publishes the graph if edges were uploaded since it was published last.
+     */
+    private void publishPending() {
+        if (pendingEdges.getAndSet(0) > 0)
+            graph.publish();
+    }
+
+    /**
+     * Calculates on the workers, the calculation is cancelled if it does not finish in time.
+     */
+    private <T> T calculate(Callable<T> calculation, CancellationToken token) throws TimeoutException {
+        Future<T> future = workers.submit(calculation);
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            token.cancel();
+            future.cancel(true);
+            throw e;
+        } catch (InterruptedException e) {
+            token.cancel();
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the query", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static String parameter(URI uri, String name) {
+        String query = uri.getRawQuery();
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                int equals = parameter.indexOf('=');
+                if (equals > 0 && parameter.substring(0, equals).equals(name))
+                    return URLDecoder.decode(parameter.substring(equals + 1), StandardCharsets.UTF_8);
+            }
+        }
+        throw new IllegalArgumentException("Missing parameter " + name);
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    private static String error(String message) {
+        StringBuilder json = new StringBuilder("{\"error\":");
+        string(json, message);
+        return json.append('}').toString();
+    }
+
+    /**
+     * Writes numeric results as JSON numbers and all the others as strings.
+     */
+    private static void value(StringBuilder json, String result) {
+        boolean number = !result.isEmpty();
+        for (int i = 0; i < result.length() && number; i++)
+            number = result.charAt(i) >= '0' && result.charAt(i) <= '9';
+        if (number)
+            json.append(result);
+        else
+            string(json, result);
+    }
+
+    private static void string(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\')
+                json.append('\\').append(c);
+            else if (c < 0x20)
+                json.append(String.format("\\u%04x", (int) c));
+            else
+                json.append(c);
+        }
+        json.append('"');
+    }
+}
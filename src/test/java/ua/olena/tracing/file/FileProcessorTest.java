@@ -4,11 +4,36 @@ import jdk.jfr.Description;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import ua.olena.tracing.graph.Condition;
+import ua.olena.tracing.graph.Graph;
+import ua.olena.tracing.graph.PathReport;
+import ua.olena.tracing.graph.Query;
+import ua.olena.tracing.graph.SlidingWindowGraph;
+import ua.olena.tracing.graph.Statistic;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -41,4 +66,291 @@ class FileProcessorTest {
             assertTrue(processor.processFile(url.getPath()));
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    @Description("Streaming of lines with whitespace, line breaks and empty traces")
+    void testTraceReader(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("traces.csv");
+        Files.writeString(file, "AB5 ,\tBC4,\r\nCD8\r\rAB5,  BC4 \n");
+
+        try (TraceReader reader = new TraceReader(file)) {
+            Graph graph = reader.next();
+            assertEquals("9", graph.getAverageLatency("A-B-C"));
+            assertEquals("8", reader.next().getAverageLatency("C-D"));
+
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class, reader::next);
+            assertEquals("One of the traces does not follow format of LetterLetterNumber ", e.getMessage());
+
+            e = assertThrows(IllegalArgumentException.class, reader::next);
+            assertEquals("One of the traces does not follow format of LetterLetterNumber BC4 ", e.getMessage());
+        }
+    }
+
+    @Test
+    @Description("Streaming of traces with long service names")
+    void testTraceReaderLongNames(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("traces.csv");
+        Files.writeString(file, "auth-svc>billing-svc:12, billing-svc>db:3, AB5\nauth-svc>:12\n");
+
+        try (TraceReader reader = new TraceReader(file)) {
+            Graph graph = reader.next();
+            assertEquals("15", graph.getAverageLatency("auth-svc>billing-svc>db"));
+            assertEquals("5", graph.getAverageLatency("A-B"));
+
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class, reader::next);
+            assertEquals("One of the traces does not follow format of LetterLetterNumber auth-svc>:12", e.getMessage());
+        }
+    }
+
+    @Test
+    @Description("Parallel processing prints values in the order of lines")
+    void testParallelProcessing(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("traces.csv");
+        StringBuilder lines = new StringBuilder();
+        for (int i = 1; i <= 50; i++)
+            lines.append("AB").append(i).append(", BC4, CD8, DC8, DE6, AD").append(i % 7 + 1)
+                    .append(", CE2, EB3, AE7\n");
+        Files.writeString(file, lines);
+
+        String expected = capture(() -> new FileProcessor().processFile(file.toString()));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            assertEquals(expected, capture(() -> new FileProcessor(executor, 3).processFile(file.toString())));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @Description("Results in csv and binary formats")
+    void testOutputFormats(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("traces.csv");
+        Files.writeString(file, "AB5, BC4, CD8\nAB7\n");
+        List<Query> queries = List.of(Query.latency("A-B-C"), Query.stops("A", "C", 2, Condition.MAX_STOPS),
+                Query.shortest("C", "A"));
+
+        String csv = capture(() -> new FileProcessor(queries, null, 1, OutputFormat.CSV)
+                .processFile(file.toString()));
+        String separator = System.lineSeparator();
+        assertEquals("\"latency A-B-C\",\"stops A C max 2\",\"shortest C A\"" + separator
+                + "9,1,0" + separator + "NO SUCH TRACE,0,0" + separator, csv);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ResultWriter writer = OutputFormat.BINARY.writer(output, queries);
+        writer.write(new long[]{9, 1, Graph.NO_TRACE});
+        writer.flush();
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(output.toByteArray()));
+        assertEquals(3, input.readInt());
+        assertEquals(9, input.readLong());
+        assertEquals(1, input.readLong());
+        assertEquals(Graph.NO_TRACE, input.readLong());
+        assertEquals(-1, input.read());
+
+        assertThrows(IllegalArgumentException.class, () -> OutputFormat.of("xml"));
+        assertEquals(OutputFormat.BINARY, OutputFormat.of("binary"));
+    }
+
+    @Test
+    @Description("Latencies of recorded paths in chunks")
+    void testEvaluatePaths(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("paths.txt");
+        StringBuilder paths = new StringBuilder();
+        for (int i = 0; i < 100_000; i++)
+            paths.append(i % 3 == 0 ? "A-E-D\n" : "A-B-C\n");
+        Files.writeString(file, paths);
+        Graph graph = new Graph();
+        graph.addEdge("A", "B", 5);
+        graph.addEdge("B", "C", 4);
+        graph.addEdge("A", "E", 7);
+        graph.addEdge("C", "D", 8);
+
+        String expected = capture(() -> {
+            PathReport report = new PathEvaluator().evaluate(graph, file.toString());
+            assertEquals(100_000, report.getPaths());
+            assertEquals(33_334, report.getMissingPaths());
+        });
+        String[] lines = expected.split(System.lineSeparator());
+        assertEquals("NO SUCH TRACE", lines[0]);
+        assertEquals("9", lines[1]);
+        assertEquals("Paths: 100000, missing: 33334, missing edges: 33334, unknown services: 0", lines[100_000]);
+        assertEquals("Missing edge E-D: 33334", lines[100_001]);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            assertEquals(expected, capture(() -> new PathEvaluator(executor, 2).evaluate(graph, file.toString())));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @Description("Paths with long and non-ASCII service names resolved from bytes")
+    void testEvaluatePathNames(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("paths.txt");
+        Files.writeString(file, "auth-svc>billing-svc>db\r\n\nA-\u00e9\nauth-svc>db");
+        Graph graph = new Graph();
+        graph.addEdge("auth-svc", "billing-svc", 12);
+        graph.addEdge("billing-svc", "db", 3);
+        graph.addEdge("A", "\u00e9", 1);
+
+        String output = capture(() -> {
+            PathReport report = new PathEvaluator().evaluate(graph, file.toString());
+            assertEquals(3, report.getPaths());
+            assertEquals(1, report.getMissingEdges());
+            assertEquals(0, report.getUnknownServices());
+        });
+        String[] lines = output.split(System.lineSeparator());
+        assertEquals("15", lines[0]);
+        assertEquals("1", lines[1]);
+        assertEquals("NO SUCH TRACE", lines[2]);
+    }
+
+    @Test
+    @Description("Stream of timestamped traces answered over the sliding window")
+    void testProcessStream(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("stream.csv");
+        Files.writeString(file, "AB5@1697040000000, BC4@1697040000000\nAB7@1697040300000\n"
+                + "auth>db:3@1697040900000\nAB5@\n");
+        List<Query> queries = List.of(Query.latency("A-B-C"));
+
+        StreamProcessor processor = new StreamProcessor(queries, OutputFormat.CSV,
+                Clock.fixed(Instant.ofEpochMilli(1697040000000L), ZoneOffset.UTC));
+        String csv = capture(() -> {
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> processor
+                    .process(file.toString(), new SlidingWindowGraph(Duration.ofMinutes(10))));
+            assertEquals("One of the traces does not follow format of LetterLetterNumber AB5@", e.getMessage());
+        });
+        String separator = System.lineSeparator();
+        assertEquals("\"latency A-B-C\"" + separator + "9" + separator + "10" + separator + "NO SUCH TRACE"
+                + separator, csv);
+    }
+
+    @Test
+    @Description("Traces leave the sliding window while the stream is quiet")
+    void testProcessQuietStream(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("stream.csv");
+        Files.writeString(file, "AB5@1697040000000, BC4@1697040000000\nBC6@1697040000000\nCD3@1697040000000\n");
+        List<Query> queries = List.of(Query.latency("A-B-C"));
+        Instant start = Instant.ofEpochMilli(1697040000000L);
+        Iterator<Instant> times = List.of(start, start.plusSeconds(60), start.plusSeconds(660)).iterator();
+        Clock clock = new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return times.next();
+            }
+        };
+
+        StreamProcessor processor = new StreamProcessor(queries, OutputFormat.CSV, clock);
+        String csv = capture(() -> processor.process(file.toString(), new SlidingWindowGraph(Duration.ofMinutes(10))));
+        String separator = System.lineSeparator();
+        assertEquals("\"latency A-B-C\"" + separator + "9" + separator + "10" + separator + "NO SUCH TRACE"
+                + separator, csv);
+    }
+
+    @Test
+    @Description("Ingestion of a span log with a wrong span")
+    void testIngestSpans(@TempDir Path dir) throws IOException {
+        Path file = writeSpans(dir);
+        List<ChunkReport> reports = new SpanLogIngester().ingest(file.toString(), new Graph(), Long.MAX_VALUE);
+        assertEquals(1, reports.size());
+        assertEquals(500, reports.get(0).getSpans());
+        assertEquals(400, reports.get(0).getEdges());
+        assertEquals(1, reports.get(0).getErrors());
+        assertTrue(reports.get(0).getFirstError().startsWith("Span at byte "));
+
+        assertThrows(IllegalArgumentException.class, () -> new SpanLogIngester().ingest("missing.csv", new Graph()));
+    }
+
+    @Test
+    @Description("Parallel ingestion of span logs in chunks")
+    void testParallelIngestSpans(@TempDir Path dir) throws IOException {
+        Path file = writeSpans(dir);
+        Graph whole = new Graph();
+        new SpanLogIngester().ingest(file.toString(), whole, Long.MAX_VALUE);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Graph merged = new Graph();
+            List<ChunkReport> reports = new SpanLogIngester(executor, 4).ingest(file.toString(), merged, 300);
+            assertTrue(reports.size() > 10);
+            byte[] bytes = Files.readAllBytes(file);
+            long spans = 0;
+            long errors = 0;
+            for (int i = 0; i < reports.size(); i++) {
+                ChunkReport report = reports.get(i);
+                assertEquals(i, report.getIndex());
+                assertEquals(i == 0 ? 0 : reports.get(i - 1).getEnd(), report.getStart());
+                assertTrue(report.getStart() == 0 || bytes[(int) report.getStart() - 1] == '\n');
+                spans += report.getSpans();
+                errors += report.getErrors();
+            }
+            assertEquals(bytes.length, reports.get(reports.size() - 1).getEnd());
+            assertEquals(500, spans);
+            assertEquals(1, errors);
+
+            for (Statistic statistic : new Statistic[]{Statistic.MEAN, Statistic.MAX, Statistic.P99}) {
+                whole.useStatistic(statistic);
+                merged.useStatistic(statistic);
+                assertEquals(whole.traceLatency("B-C-D-E"), merged.traceLatency("B-C-D-E"));
+                assertEquals(whole.shortestTrace(whole.getServiceId("B"), whole.getServiceId("A")),
+                        merged.shortestTrace(merged.getServiceId("B"), merged.getServiceId("A")));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @Description("Reading of queries")
+    void testQueryReader() {
+        QueryReader reader = new QueryReader();
+        Query query = reader.parse("stops  C C max 3", 1);
+        assertEquals(Query.Type.STOPS, query.getType());
+        assertEquals(Condition.MAX_STOPS, query.getCondition());
+        assertEquals(3, query.getNumber());
+        assertEquals(Query.Type.BUDGET, reader.parse("budget C C 30", 2).getType());
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> reader.parse("stops C C most 3", 3));
+        assertEquals("Wrong query at line 3: stops C C most 3", e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> reader.parse("shortest C", 4));
+    }
+
+    /**
+     * @return span log of 500 spans, every fifth one a root span, and one span with a wrong duration
+     */
+    private static Path writeSpans(Path dir) throws IOException {
+        StringBuilder log = new StringBuilder();
+        String[] services = {"A", "B", "C", "D", "E"};
+        for (int i = 0; i < 500; i++) {
+            log.append("trace-").append(i / 5).append(',')
+                    .append(i % 5 == 0 ? "" : services[i % 4]).append(" , ")
+                    .append(services[(i + 1) % 5]).append(',').append(i % 37).append(i % 2 == 0 ? "\n" : "\r\n");
+            if (i == 250)
+                log.append("trace-x,A,B,fast\n\n");
+        }
+        return Files.write(dir.resolve("spans.csv"), log.toString().getBytes());
+    }
+
+    private static String capture(Runnable runnable) {
+        PrintStream original = System.out;
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(output, true));
+        try {
+            runnable.run();
+        } finally {
+            System.setOut(original);
+        }
+        return output.toString();
+    }
+}
@@ -0,0 +1,109 @@
+package ua.olena.tracing.graph;
+
+import jdk.jfr.Description;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks ingestion of edges from many threads and queries against published snapshots.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+@DisplayName("Concurrent Graph Test")
+class ConcurrentGraphTest {
+    private static final int WRITERS = 16;
+    private static final int ROUNDS = 500;
+
+    @Test
+    @Description("Edges added by many writers while snapshots are queried")
+    void testConcurrentIngestion() throws Exception {
+        ConcurrentGraph graph = new ConcurrentGraph(8, Statistic.MEAN);
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS + 1);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int writer = 0; writer < WRITERS; writer++) {
+                writers.add(executor.submit(() -> {
+                    for (int round = 0; round < ROUNDS; round++) {
+                        graph.addEdge("A", "B", 4);
+                        graph.addEdge("B", "C", 6);
+                        graph.addEdge("C", "A", 5);
+                    }
+                }));
+            }
+            Future<?> reader = executor.submit(() -> {
+                long epoch = 0;
+                while (epoch < 20) {
+                    epoch = graph.publish();
+                    Graph snapshot = graph.snapshot();
+                    String latency = snapshot.getAverageLatency("A-B-C");
+                    assertTrue(latency.equals("10") || latency.equals("NO SUCH TRACE"));
+                    assertTrue(snapshot.getShortestTrace("A", "A") == 0 || snapshot.getShortestTrace("A", "A") == 15);
+                }
+            });
+            for (Future<?> writer : writers)
+                writer.get();
+            reader.get();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        graph.publish();
+        Graph snapshot = graph.snapshot();
+        assertEquals("10", snapshot.getAverageLatency("A-B-C"));
+        assertEquals(15, snapshot.getShortestTrace("A", "A"));
+        assertEquals(3, snapshot.getTracesByStops("A", "A", 9, Condition.MAX_STOPS));
+    }
+
+    @Test
+    @Description("Published snapshot does not see later edges")
+    void testSnapshot() {
+        ConcurrentGraph graph = new ConcurrentGraph();
+        assertEquals(0, graph.getEpoch());
+        assertEquals("NO SUCH TRACE", graph.snapshot().getAverageLatency("A-B"));
+
+        graph.addEdge("A", "B", 5);
+        graph.addEdge("A", "B", 7);
+        assertEquals(1, graph.publish());
+        Graph snapshot = graph.snapshot();
+        graph.addEdge("B", "C", 4);
+
+        assertEquals("6", snapshot.getAverageLatency("A-B"));
+        assertEquals("NO SUCH TRACE", snapshot.getAverageLatency("A-B-C"));
+        assertEquals(2, graph.publish());
+        assertEquals("10", graph.snapshot().getAverageLatency("A-B-C"));
+        assertThrows(IllegalStateException.class, () -> snapshot.addEdge("C", "D", 1));
+    }
+
+    @Test
+    @Description("Graphs added with all their observed latencies")
+    void testAddGraph() {
+        Graph part = new Graph();
+        part.addEdge("A", "B", 2);
+        part.addEdge("A", "B", 10);
+        for (int latency = 1; latency <= 100; latency++)
+            part.addEdge("B", "C", latency);
+
+        ConcurrentGraph graph = new ConcurrentGraph();
+        graph.addGraph(part);
+        graph.addEdge("A", "B", 12);
+        graph.publish();
+        assertEquals("8", graph.snapshot().getAverageLatency("A-B"));
+
+        ConcurrentGraph p99 = new ConcurrentGraph(4, Statistic.P99);
+        p99.addGraph(part);
+        p99.publish();
+        assertEquals(part.useStatistic(Statistic.P99).getAverageLatency("B-C"),
+                p99.snapshot().getAverageLatency("B-C"));
+    }
+}
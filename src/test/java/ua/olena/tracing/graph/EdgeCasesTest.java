@@ -4,7 +4,16 @@ import jdk.jfr.Description;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Checks tricky cases such as loops or no path between services.
@@ -47,6 +56,22 @@ class EdgeCasesTest {
         assertEquals(1, stops);
     }
 
+    @Test
+    @Description("Number of traces with many stops")
+    void testTracesNumberManyStops() {
+        Graph graph = new Graph();
+        graph.addEdge("A", "B", 1);
+        graph.addEdge("A", "C", 1);
+        graph.addEdge("B", "A", 1);
+        graph.addEdge("C", "A", 1);
+
+        assertEquals(1 << 20, graph.getTracesByStops("A", "A", 40, Condition.EXACT_STOPS));
+        assertEquals((1 << 11) - 2, graph.getTracesByStops("A", "A", 21, Condition.MAX_STOPS));
+        assertEquals(1L << 62, graph.countTracesByStops("A", "A", 124, Condition.EXACT_STOPS));
+        assertThrows(ArithmeticException.class,
+                () -> graph.countTracesByStops("A", "A", 128, Condition.EXACT_STOPS));
+    }
+
     @Test
     @Description("Shortest traces in terms of latency between <from> and <to>")
     void testShortestTraces() {
@@ -71,6 +96,343 @@ class EdgeCasesTest {
         assertEquals(6, length);
     }
 
+    @Test
+    @Description("Traces with average latency smaller than a large <number>")
+    void testTracesShorterThanLargeBudget() {
+        Graph graph = new Graph();
+        graph.addEdge("A", "B", 1);
+        graph.addEdge("B", "A", 1);
+        assertEquals(1000, graph.getShortestTraces("A", "A", 2001));
+        assertEquals(1000, graph.getShortestTraces("A", "B", 2000));
+    }
+
+    @Test
+    @Description("Traces under a huge <number> do not expand a service per unit of latency")
+    void testHugeLatencyBudget() {
+        Graph chain = new Graph();
+        chain.addEdge("A", "B", 5);
+        chain.addEdge("B", "C", 5);
+        QueryBudget budget = QueryBudget.unlimited().withMaxExpandedNodes(10);
+        for (int latency : new int[]{200_000_000, Integer.MAX_VALUE}) {
+            QueryResult result = chain.countShortestTraces("A", "C", latency, budget);
+            assertTrue(result.isComplete());
+            assertEquals(1, result.getValue());
+        }
+        assertEquals(1, chain.getShortestTraces("A", "C", Integer.MAX_VALUE));
+    }
+
+    @Test
+    @Description("Traces through connections with zero latency")
+    void testZeroLatency() {
+        Graph graph = new Graph();
+        graph.addEdge("A", "B", 0);
+        graph.addEdge("B", "A", 2);
+        assertEquals(3, graph.getShortestTraces("A", "A", 7));
+        assertEquals(4, graph.getShortestTraces("A", "B", 7));
+
+        graph = new Graph();
+        graph.addEdge("A", "B", 0);
+        graph.addEdge("B", "C", 0);
+        graph.addEdge("A", "C", 0);
+        graph.addEdge("C", "A", 3);
+        assertEquals(6, graph.getShortestTraces("A", "C", 4));
+        assertEquals(3, graph.getShortestTraces("A", "B", 4));
+        assertEquals(2, graph.getShortestTraces("A", "A", 4));
+    }
+
+    @Test
+    @Description("Number of traces is infinite on a cycle of connections with zero latency")
+    void testZeroLatencyCycle() {
+        Graph cycle = new Graph();
+        cycle.addEdge("A", "B", 0);
+        cycle.addEdge("B", "A", 0);
+        cycle.addEdge("B", "C", 10_000_000);
+        assertThrows(ArithmeticException.class, () -> cycle.getShortestTraces("A", "A", 5));
+        assertEquals(0, cycle.getShortestTraces("A", "C", 10_000_000));
+        assertThrows(ArithmeticException.class, () -> cycle.countShortestTraces("A", "C", 20_000_000));
+    }
+
+    @Test
+    @Description("Negative latencies are rejected")
+    void testNegativeLatency() {
+        Graph graph = getGraph();
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> graph.addEdge("A", "B", -1));
+        assertEquals("Latency must not be negative: A-B -1", e.getMessage());
+        graph.addEdge("A", "B", 3);
+        assertEquals(2, graph.traceLatency("A-B"));
+    }
+
+    @Test
+    @Description("Services that can not reach the destination are not expanded when counting by stops")
+    void testPruningByStops() {
+        QueryResult expected = getMesh(false).countTracesByStops("A", "A", 8, Condition.MAX_STOPS,
+                QueryBudget.unlimited());
+        QueryResult result = getMesh(true).countTracesByStops("A", "A", 8, Condition.MAX_STOPS,
+                QueryBudget.unlimited());
+        assertEquals(expected.getValue(), result.getValue());
+        assertEquals(expected.getExpandedNodes(), result.getExpandedNodes());
+    }
+
+    @Test
+    @Description("Services that can not reach the destination are not expanded when counting by latency")
+    void testPruningByLatency() {
+        QueryResult expected = getMesh(false).countShortestTraces("A", "C", 40, QueryBudget.unlimited());
+        QueryResult result = getMesh(true).countShortestTraces("A", "C", 40, QueryBudget.unlimited());
+        assertEquals(expected.getValue(), result.getValue());
+        assertEquals(expected.getExpandedNodes(), result.getExpandedNodes());
+    }
+
+    @Test
+    @Description("Services that can not reach the destination are not expanded by the shortest trace")
+    void testPruningShortestTrace() {
+        QueryResult expected = getMesh(false).getShortestTrace("B", "A", QueryBudget.unlimited());
+        QueryResult result = getMesh(true).getShortestTrace("B", "A", QueryBudget.unlimited());
+        assertEquals(5, result.getValue());
+        assertEquals(expected.getExpandedNodes(), result.getExpandedNodes());
+    }
+
+    @Test
+    @Description("Services that can not reach the destination are not visited by the lazy enumeration")
+    void testPruningTraces() {
+        Graph expected = getMesh(false);
+        Graph leaves = getMesh(true);
+        assertEquals(expected.tracesByStops("A", "C", 8, Condition.MAX_STOPS).map(Trace::toString)
+                        .collect(Collectors.toList()),
+                leaves.tracesByStops("A", "C", 8, Condition.MAX_STOPS).map(Trace::toString)
+                        .collect(Collectors.toList()));
+        assertEquals(expected.tracesUnderLatency("A", "C", 40).map(Trace::toString).collect(Collectors.toList()),
+                leaves.tracesUnderLatency("A", "C", 40).map(Trace::toString).collect(Collectors.toList()));
+
+        CompactGraph graph = leaves.compact();
+        int a = leaves.getServiceId("A");
+        int c = leaves.getServiceId("C");
+        assertNull(new TraceSpliterator(graph, a, c, 1, 8, Long.MAX_VALUE).trySplit());
+        assertNull(new TraceSpliterator(graph, a, c, 1, Integer.MAX_VALUE, 40).trySplit());
+    }
+
+    @Test
+    @Description("Reachability between services")
+    void testReachability() {
+        Graph leaves = getMesh(true);
+        Reachability reachability = leaves.compact().reachability();
+        int a = leaves.getServiceId("A");
+        int db = leaves.getServiceId("db0");
+        assertTrue(reachability.canReach(a, a));
+        assertTrue(reachability.canReach(a, db));
+        assertFalse(reachability.canReach(db, a));
+        assertFalse(reachability.canReach(db, db));
+        assertEquals(0, leaves.countTracesByStops("db0", "A", 8, Condition.MAX_STOPS));
+    }
+
+    @Test
+    @Description("Counting by stops with all threads of a pool")
+    void testParallelCountingByStops() {
+        Graph graph = getRandomGraph();
+        Random random = new Random(7);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int source = 0; source < 20; source++) {
+                String from = "s" + source;
+                String to = "s" + random.nextInt(5000);
+                assertEquals(graph.countTracesByStops(from, to, 9, Condition.MAX_STOPS),
+                        graph.countTracesByStops(from, to, 9, Condition.MAX_STOPS, pool));
+                assertEquals(graph.countTracesByStops(from, from, 7, Condition.EXACT_STOPS),
+                        graph.countTracesByStops(from, from, 7, Condition.EXACT_STOPS, pool));
+            }
+            assertEquals(1, graph.countTracesByStops("s1", "s1", 0, Condition.EXACT_STOPS, pool));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    @Description("Counting by latency with all threads of a pool")
+    void testParallelCountingByLatency() {
+        Graph graph = getRandomGraph();
+        Random random = new Random(7);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int source = 0; source < 20; source++) {
+                String from = "s" + source;
+                String to = "s" + random.nextInt(5000);
+                assertEquals(graph.countShortestTraces(from, to, 45), graph.countShortestTraces(from, to, 45, pool));
+            }
+            assertEquals(0, graph.countShortestTraces("s1", "unknown", 45, pool));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    @Description("Counting by latency with a pool through connections with zero latency")
+    void testParallelZeroLatency() {
+        Graph graph = getGraph();
+        graph.addEdge("B", "E", 0);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertEquals(graph.countShortestTraces("A", "C", 60), graph.countShortestTraces("A", "C", 60, pool));
+            graph.addEdge("E", "B", 0);
+            graph.addEdge("E", "C", 1);
+            assertThrows(ArithmeticException.class, () -> graph.countShortestTraces("A", "C", 60, pool));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    @Description("Counting by latency with a pool by enumeration when the window of rows is too large")
+    void testParallelEnumeration() {
+        Graph graph = new Graph();
+        for (int vertex = 0; vertex < ParallelCounter.MIN_PARALLEL_VERTEXES; vertex++) {
+            graph.addEdge("c" + vertex, "c" + (vertex + 1), 1);
+            graph.addEdge("c" + vertex, "c" + (vertex + 2), 2);
+        }
+        graph.addEdge("c" + ParallelCounter.MIN_PARALLEL_VERTEXES, "c0", 10_000);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertEquals(graph.countShortestTraces("c0", "c20", 10_030),
+                    graph.countShortestTraces("c0", "c20", 10_030, pool));
+            assertEquals(10_946, graph.countShortestTraces("c0", "c20", 10_030, pool));
+            graph.addEdge("c5", "z", 0);
+            graph.addEdge("z", "c5", 0);
+            assertThrows(ArithmeticException.class, () -> graph.countShortestTraces("c0", "c20", 10_030, pool));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    @Description("Counting by latency with a pool along a long chain")
+    void testParallelChain() {
+        Graph chain = new Graph();
+        for (int vertex = 0; vertex < ParallelCounter.MIN_PARALLEL_VERTEXES; vertex++)
+            chain.addEdge("c" + vertex, "c" + (vertex + 1), 3 + vertex % 2);
+        String last = "c" + ParallelCounter.MIN_PARALLEL_VERTEXES;
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertEquals(0, chain.countShortestTraces("c0", last, 14336, pool));
+            assertEquals(1, chain.countShortestTraces("c0", last, 14337, pool));
+            assertEquals(1, chain.countShortestTraces("c0", last, Integer.MAX_VALUE, pool));
+        } finally {
+            pool.shutdownNow();
+        }
+
+        QueryResult result = chain.countShortestTraces("c0", last, Integer.MAX_VALUE,
+                QueryBudget.unlimited().withMaxExpandedNodes(2 * ParallelCounter.MIN_PARALLEL_VERTEXES));
+        assertTrue(result.isComplete());
+        assertEquals(1, result.getValue());
+    }
+
+    @Test
+    @Description("Queries with an unlimited budget are complete")
+    void testUnlimitedBudget() {
+        Graph graph = getGraph();
+        QueryResult result = graph.countTracesByStops("A", "A", 30, Condition.MAX_STOPS, QueryBudget.unlimited());
+        assertTrue(result.isComplete());
+        assertEquals(graph.countTracesByStops("A", "A", 30, Condition.MAX_STOPS), result.getValue());
+        assertEquals(10, graph.getShortestTrace("A", "D", QueryBudget.unlimited()).getValue());
+    }
+
+    @Test
+    @Description("Queries stopped by the number of expanded services")
+    void testNodesBudget() {
+        Graph graph = getGraph();
+        long all = graph.countTracesByStops("A", "A", 30, Condition.MAX_STOPS);
+        QueryResult partial = graph.countTracesByStops("A", "A", 30, Condition.MAX_STOPS,
+                QueryBudget.unlimited().withMaxExpandedNodes(20));
+        assertEquals(QueryResult.Status.NODES_EXCEEDED, partial.getStatus());
+        assertTrue(partial.getValue() > 0 && partial.getValue() < all);
+
+        partial = graph.getShortestTrace("A", "D", QueryBudget.unlimited().withMaxExpandedNodes(1));
+        assertFalse(partial.isComplete());
+        assertEquals(0, partial.getValue());
+    }
+
+    @Test
+    @Description("Queries without an end stopped by the number of expanded services")
+    void testNodesBudgetOnLoop() {
+        Graph loop = getLoop();
+        QueryBudget budget = QueryBudget.unlimited().withMaxExpandedNodes(1000);
+        QueryResult partial = loop.countTracesByStops("A", "A", Integer.MAX_VALUE, Condition.MAX_STOPS, budget);
+        assertEquals(QueryResult.Status.NODES_EXCEEDED, partial.getStatus());
+        assertTrue(partial.getValue() > 0);
+
+        partial = loop.countShortestTraces("A", "A", 2_000_000_000, budget);
+        assertEquals(QueryResult.Status.NODES_EXCEEDED, partial.getStatus());
+        assertEquals(1001, partial.getExpandedNodes());
+    }
+
+    @Test
+    @Description("Queries stopped by a cancelled token")
+    void testCancelledBudget() {
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+        QueryResult partial = getGraph().countShortestTraces("A", "A", 1000,
+                QueryBudget.unlimited().withCancellation(token));
+        assertEquals(QueryResult.Status.CANCELLED, partial.getStatus());
+        assertEquals(1, partial.getExpandedNodes());
+    }
+
+    @Test
+    @Description("Queries stopped by a timeout that has passed before the first check")
+    void testTimeBudget() {
+        QueryBudget budget = QueryBudget.unlimited().withTimeout(Duration.ofNanos(1)).withMaxExpandedNodes(1_000_000);
+        QueryResult partial = getLoop().countShortestTraces("A", "A", 2_000_000_000, budget);
+        assertEquals(QueryResult.Status.TIME_EXCEEDED, partial.getStatus());
+    }
+
+    @Test
+    @Description("Lookups of the shortest trace index stopped by their budget")
+    void testIndexBudget() {
+        Graph indexed = getGraph().buildShortestTraceIndex();
+        QueryResult result = indexed.getShortestTrace("A", "D", QueryBudget.unlimited());
+        assertTrue(result.isComplete());
+        assertEquals(10, result.getValue());
+        assertEquals(1, result.getExpandedNodes());
+
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+        result = indexed.getShortestTrace("A", "D", QueryBudget.unlimited().withCancellation(token));
+        assertEquals(QueryResult.Status.CANCELLED, result.getStatus());
+        assertEquals(0, result.getValue());
+    }
+
+    private static Graph getLoop() {
+        Graph loop = new Graph();
+        loop.addEdge("A", "B", 1);
+        loop.addEdge("B", "A", 1);
+        return loop;
+    }
+
+    /**
+     * @param leaves whether services A and C also lead to 50 services each that do not lead anywhere
+     */
+    private static Graph getMesh(boolean leaves) {
+        Graph graph = new Graph();
+        graph.addEdge("A", "B", 2);
+        graph.addEdge("B", "C", 3);
+        graph.addEdge("C", "A", 4);
+        graph.addEdge("B", "A", 5);
+        for (int i = 0; leaves && i < 50; i++) {
+            graph.addEdge("A", "db" + i, 1);
+            graph.addEdge("C", "cache" + i, 1);
+        }
+        return graph;
+    }
+
+    /**
+     * @return graph large enough to be counted in parallel, three random connections from every service
+     */
+    private static Graph getRandomGraph() {
+        Random random = new Random(42);
+        Graph graph = new Graph();
+        for (int vertex = 0; vertex < ParallelCounter.MIN_PARALLEL_VERTEXES + 1000; vertex++) {
+            for (int edge = 0; edge < 3; edge++)
+                graph.addEdge("s" + vertex, "s" + random.nextInt(5000), 1 + random.nextInt(10));
+        }
+        return graph;
+    }
+
     private static Graph getGraph() {
         Graph graph = new Graph();
         graph.addEdge("A", "B", 1);
@@ -0,0 +1,97 @@
+package ua.olena.tracing.graph;
+
+import jdk.jfr.Description;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that a graph loaded from a snapshot answers the same as the original one.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+@DisplayName("Graph Snapshot Test")
+class GraphSnapshotTest {
+
+    @Test
+    @Description("Writing and loading of a snapshot")
+    void testWriteAndRead(@TempDir Path dir) throws IOException {
+        Graph graph = getGraph();
+        Path file = dir.resolve("graph.snapshot");
+        GraphSnapshot.write(graph, file);
+        Graph loaded = GraphSnapshot.read(file);
+
+        assertEquals(graph.getAverageLatency("A-B-C"), loaded.getAverageLatency("A-B-C"));
+        assertEquals("15", loaded.getAverageLatency("auth-svc>billing-svc>A"));
+        assertEquals(graph.getTracesByStops("C", "C", 3, Condition.MAX_STOPS),
+                loaded.getTracesByStops("C", "C", 3, Condition.MAX_STOPS));
+        assertEquals(graph.getShortestTrace("B", "B"), loaded.getShortestTrace("B", "B"));
+        assertEquals(graph.getShortestTraces("C", "C", 30), loaded.getShortestTraces("C", "C", 30));
+
+        loaded.addEdge("A", "B", 1);
+        loaded.addEdge("B", "A", 1);
+        assertEquals(4, loaded.getShortestTrace("B", "B"));
+        assertEquals("7", loaded.getAverageLatency("A-B-C"));
+    }
+
+    @Test
+    @Description("A loaded graph only has latencies by the statistic the snapshot was written with")
+    void testStatistic(@TempDir Path dir) throws IOException {
+        Graph graph = new Graph();
+        graph.addEdge("A", "B", 2);
+        graph.addEdge("A", "B", 10);
+        Path file = dir.resolve("graph.snapshot");
+        GraphSnapshot.write(graph.useStatistic(Statistic.MAX), file);
+        Graph loaded = GraphSnapshot.read(file);
+
+        assertEquals("10", loaded.useStatistic(Statistic.MAX).getAverageLatency("A-B"));
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> loaded.useStatistic(Statistic.P99));
+        assertEquals("Latencies loaded from a snapshot are only known by MAX, not by P99", e.getMessage());
+        assertThrows(IllegalStateException.class, () -> new Graph().addAll(loaded));
+
+        Graph merged = new Graph().useStatistic(Statistic.MAX).addAll(loaded);
+        assertEquals("10", merged.getAverageLatency("A-B"));
+        assertThrows(IllegalStateException.class, () -> merged.useStatistic(Statistic.MEAN));
+    }
+
+    @Test
+    @Description("Loading of a corrupted snapshot")
+    void testCorrupted(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("graph.snapshot");
+        GraphSnapshot.write(getGraph(), file);
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(file, bytes);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> GraphSnapshot.read(file));
+        assertEquals("Snapshot is corrupted: " + file, e.getMessage());
+
+        Files.writeString(file, "AB5, BC4");
+        assertThrows(IllegalArgumentException.class, () -> GraphSnapshot.read(file));
+    }
+
+    private static Graph getGraph() {
+        Graph graph = new Graph();
+        graph.addEdge("A", "B", 5);
+        graph.addEdge("B", "C", 4);
+        graph.addEdge("C", "D", 8);
+        graph.addEdge("D", "C", 8);
+        graph.addEdge("D", "E", 6);
+        graph.addEdge("A", "D", 5);
+        graph.addEdge("C", "E", 2);
+        graph.addEdge("E", "B", 3);
+        graph.addEdge("A", "E", 7);
+        graph.addEdge("auth-svc", "billing-svc", 12);
+        graph.addEdge("billing-svc", "A", 3);
+        return graph;
+    }
+}
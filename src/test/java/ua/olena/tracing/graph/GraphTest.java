@@ -4,7 +4,16 @@ import jdk.jfr.Description;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Tests checking that average latency, number of traces between two endpoints, number of traces with minimal latency
@@ -75,6 +84,20 @@ class GraphTest {
         assertEquals(6, length);
     }
 
+    @Test
+    @Description("Shortest traces from <from> to every service")
+    void testShortestTracesFromService() {
+        Distances distances = getGraph().getShortestTrace("A");
+        assertEquals(9, distances.get("C"));
+        assertEquals(5, distances.get("D"));
+        assertEquals(7, distances.get("E"));
+        assertEquals(0, distances.get("A"));
+        assertEquals(0, distances.get("F"));
+
+        distances = getGraph().getShortestTrace("B");
+        assertEquals(9, distances.get("B"));
+    }
+
     @Test
     @Description("Traces with average latency smaller than <number>")
     void testTracesShorterThan() {
@@ -84,6 +107,284 @@ class GraphTest {
         assertEquals(7, length);
     }
 
+    @Test
+    @Description("Compact form is rebuilt when an edge is added after a query")
+    void testFreeze() {
+        Graph graph = getGraph().freeze();
+        assertEquals("NO SUCH TRACE", graph.getAverageLatency("B-A"));
+        assertEquals(9, graph.getShortestTrace("B", "B"));
+
+        graph.addEdge("B", "A", 1);
+        assertEquals("1", graph.getAverageLatency("B-A"));
+        assertEquals(6, graph.getShortestTrace("B", "B"));
+    }
+
+    @Test
+    @Description("Services with long names")
+    void testLongNames() {
+        Graph graph = new Graph();
+        graph.addEdge("auth-svc", "billing-svc", 12);
+        graph.addEdge("billing-svc", "db", 3);
+        graph.addEdge("db", "auth-svc", 1);
+        graph.addEdge("db", "cache", 2);
+
+        assertEquals("15", graph.getAverageLatency("auth-svc>billing-svc>db"));
+        assertEquals("2", graph.getAverageLatency("db-cache"));
+        assertEquals("NO SUCH TRACE", graph.getAverageLatency("db-auth-svc"));
+        assertEquals("NO SUCH TRACE", graph.getAverageLatency("db>billing-svc"));
+        assertEquals(16, graph.getShortestTrace("db", "db"));
+        assertEquals(1, graph.getTracesByStops("auth-svc", "db", 2, Condition.EXACT_STOPS));
+    }
+
+    @Test
+    @Description("Latency of a connection observed several times by its mean, minimum and maximum")
+    void testStatistics() {
+        Graph graph = getObservedGraph();
+        assertEquals("270", graph.getAverageLatency("A-B-C"));
+        assertEquals("15", graph.useStatistic(Statistic.MIN).getAverageLatency("A-B-C"));
+        assertEquals(1005, graph.useStatistic(Statistic.MAX).getShortestTrace("A", "C"));
+    }
+
+    @Test
+    @Description("Latency of a connection observed several times by its percentiles")
+    void testPercentiles() {
+        Graph graph = getObservedGraph();
+        assertEquals("26", graph.useStatistic(Statistic.P50).getAverageLatency("A-B-C"));
+        assertEquals("964", graph.useStatistic(Statistic.P99).getAverageLatency("A-B-C"));
+    }
+
+    @Test
+    @Description("Traces under a latency counted by the statistic in use")
+    void testStatisticOfBudget() {
+        Graph graph = getObservedGraph().useStatistic(Statistic.P50);
+        assertEquals(1, graph.useStatistic(Statistic.MEAN).getShortestTraces("A", "C", 271));
+        assertEquals(0, graph.getShortestTraces("A", "C", 270));
+    }
+
+    @Test
+    @Description("Repeated queries are answered from the cache")
+    void testCache() {
+        Graph graph = getGraph().enableCache(2);
+        assertEquals(9, graph.getShortestTrace("B", "B"));
+        assertEquals(9, graph.getShortestTrace("B", "B"));
+        assertEquals(3, graph.getTracesByStops("A", "C", 4, Condition.EXACT_STOPS));
+        assertEquals(7, graph.getShortestTraces("C", "C", 30));
+        assertEquals(9, graph.getShortestTrace("B", "B"));
+        assertEquals(1, graph.getCacheHits());
+        assertEquals(4, graph.getCacheMisses());
+    }
+
+    @Test
+    @Description("Cached results are dropped when an edge is added")
+    void testCacheInvalidation() {
+        Graph graph = getGraph().enableCache(2);
+        assertEquals(9, graph.getShortestTrace("B", "B"));
+        graph.addEdge("A", "B", 1);
+        assertEquals(9, graph.getShortestTrace("B", "B"));
+        assertEquals(0, graph.getCacheHits());
+
+        graph.addEdge("B", "A", 1);
+        assertEquals(4, graph.getShortestTrace("B", "B"));
+        assertEquals(4, graph.getShortestTrace("B", "B"));
+        assertEquals(1, graph.getCacheHits());
+        assertEquals(3, graph.getCacheMisses());
+    }
+
+    @Test
+    @Description("Shortest traces answered from the index of all pairs")
+    void testShortestTraceIndex() {
+        Graph graph = getGraph();
+        Graph indexed = getGraph().buildShortestTraceIndex();
+        String[] services = {"A", "B", "C", "D", "E", "F"};
+        for (String from : services) {
+            for (String to : services)
+                assertEquals(graph.getShortestTrace(from, to), indexed.getShortestTrace(from, to));
+        }
+        assertEquals(0, indexed.getShortestTrace("B", "A"));
+    }
+
+    @Test
+    @Description("Index of all pairs is dropped when an edge is added")
+    void testShortestTraceIndexInvalidation() {
+        Graph indexed = getGraph().buildShortestTraceIndex();
+        indexed.addEdge("B", "A", 1);
+        assertEquals(6, indexed.getShortestTrace("B", "B"));
+        assertEquals(1, indexed.getShortestTrace("B", "A"));
+    }
+
+    @Test
+    @Description("Lazy enumeration of traces by stops")
+    void testTracesByStops() {
+        Graph graph = getGraph();
+        assertEquals(List.of("C-D-C", "C-E-B-C"), graph.tracesByStops("C", "C", 3, Condition.MAX_STOPS)
+                .map(Trace::toString).collect(Collectors.toList()));
+        assertEquals(Set.of("A-B-C-D-C", "A-D-C-D-C", "A-D-E-B-C"), graph.tracesByStops("A", "C", 4,
+                Condition.EXACT_STOPS).map(Trace::toString).collect(Collectors.toSet()));
+        assertEquals(List.of("A"), graph.tracesByStops("A", "A", 0, Condition.EXACT_STOPS)
+                .map(Trace::toString).collect(Collectors.toList()));
+    }
+
+    @Test
+    @Description("Lazy enumeration of traces under a latency")
+    void testTracesUnderLatency() {
+        Graph graph = getGraph();
+        List<Trace> traces = graph.tracesUnderLatency("C", "C", 30).map(Trace::copy).collect(Collectors.toList());
+        assertEquals(7, traces.size());
+        for (Trace trace : traces) {
+            assertEquals("C", trace.getService(0));
+            assertEquals(graph.getAverageLatency(trace.toString()), String.valueOf(trace.getLatency()));
+        }
+        assertEquals(3, graph.tracesUnderLatency("C", "C", 30).limit(3).count());
+        assertEquals(0, graph.tracesUnderLatency("A", "F", 60).count());
+    }
+
+    @Test
+    @Description("Lazy enumeration of traces under a latency through cycles of connections with zero latency")
+    void testTracesUnderLatencyZeroLatencyCycle() {
+        Graph graph = new Graph();
+        graph.addEdge("A", "C", 5);
+        graph.addEdge("A", "D", 0);
+        graph.addEdge("D", "E", 0);
+        graph.addEdge("E", "D", 0);
+        assertEquals(graph.countShortestTraces("A", "C", 10), graph.tracesUnderLatency("A", "C", 10).count());
+
+        graph.addEdge("E", "C", 1);
+        assertThrows(ArithmeticException.class, () -> graph.countShortestTraces("A", "C", 10));
+        assertThrows(ArithmeticException.class, () -> graph.tracesUnderLatency("A", "C", 10).count());
+    }
+
+    @Test
+    @Description("Parallel enumeration of traces")
+    void testParallelTraces() {
+        Graph graph = getGraph();
+        assertEquals(graph.countTracesByStops("C", "C", 12, Condition.MAX_STOPS),
+                graph.tracesByStops("C", "C", 12, Condition.MAX_STOPS).parallel().count());
+        assertEquals(Set.copyOf(graph.tracesUnderLatency("A", "C", 60).map(Trace::toString)
+                        .collect(Collectors.toList())),
+                graph.tracesUnderLatency("A", "C", 60).parallel().map(Trace::toString).collect(Collectors.toSet()));
+    }
+
+    @Test
+    @Description("Ids and names of services")
+    void testServiceIds() {
+        Graph graph = getGraph();
+        assertEquals("C", graph.getServiceName(graph.getServiceId("C")));
+        assertEquals(-1, graph.getServiceId("F"));
+        assertThrows(IllegalArgumentException.class, () -> graph.getServiceName(42));
+    }
+
+    @Test
+    @Description("Latency of a trace returned as a primitive value")
+    void testPrimitiveLatency() {
+        Graph graph = getGraph();
+        assertEquals(9, graph.traceLatency("A-B-C"));
+        assertEquals(9, graph.traceLatency(graph.getPath("A-B-C")));
+        assertEquals(Graph.NO_TRACE, graph.traceLatency("A-E-D"));
+        assertEquals(Graph.NO_TRACE, graph.traceLatency(graph.getPath("A-F")));
+    }
+
+    @Test
+    @Description("Queries by service ids returning primitive values")
+    void testPrimitiveQueries() {
+        Graph graph = getGraph();
+        int a = graph.getServiceId("A");
+        int c = graph.getServiceId("C");
+        assertEquals(2, graph.countTracesByStops(c, c, 3, Condition.MAX_STOPS));
+        assertEquals(3, graph.countTracesByStops(a, c, 4, Condition.EXACT_STOPS));
+        assertEquals(9, graph.shortestTrace(a, c));
+        assertEquals(Graph.NO_TRACE, graph.shortestTrace(c, a));
+        assertEquals(Graph.NO_TRACE, graph.shortestTrace(c, -1));
+        assertEquals(9, graph.buildShortestTraceIndex().shortestTrace(a, c));
+        assertEquals(7, graph.countShortestTraces(c, c, 30));
+    }
+
+    @Test
+    @Description("Latencies of a batch of paths")
+    void testTraceLatencies() {
+        Graph graph = getGraph();
+        PathBatch paths = new PathBatch(graph);
+        paths.add("A-B-C");
+        paths.add("A-E-D");
+        paths.add("A-F-C-A");
+        paths.add("A");
+        long[] latencies = new long[paths.size()];
+        PathReport report = graph.traceLatencies(paths, latencies);
+        assertArrayEquals(new long[]{9, Graph.NO_TRACE, Graph.NO_TRACE, 0}, latencies);
+        assertEquals(4, report.getPaths());
+        assertEquals(2, report.getMissingPaths());
+        assertEquals(2, report.getMissingEdges());
+        assertEquals(2, report.getUnknownServices());
+        assertEquals(Map.of("C-A", 1L, "E-D", 1L), report.getMissingEdgeCounts());
+    }
+
+    @Test
+    @Description("Summaries of batches of paths merged together")
+    void testPathReportMerge() {
+        Graph graph = getGraph();
+        PathBatch paths = new PathBatch(graph);
+        paths.add("A-E-D");
+        paths.add("C-A");
+        long[] latencies = new long[2];
+        PathReport report = graph.traceLatencies(paths, latencies);
+
+        paths.clear();
+        paths.add("E-D");
+        PathReport merged = report.merge(graph.traceLatencies(paths, latencies));
+        assertEquals(3, merged.getPaths());
+        assertEquals(Map.of("C-A", 1L, "E-D", 2L), merged.getMissingEdgeCounts());
+        assertEquals(2, report.getPaths());
+    }
+
+    @Test
+    @Description("Traces without repeated services from the shortest one")
+    void testTracesByLatency() {
+        Graph graph = getGraph();
+        assertEquals(List.of("A-B-C", "A-D-C", "A-E-B-C", "A-D-E-B-C"), graph.tracesByLatency("A", "C")
+                .map(Trace::toString).collect(Collectors.toList()));
+        assertEquals(List.of(9L, 13L, 14L, 18L), graph.tracesByLatency("A", "C")
+                .map(Trace::getLatency).collect(Collectors.toList()));
+        assertEquals(List.of("C-E-B-C", "C-D-C", "C-D-E-B-C"), graph.tracesByLatency("C", "C")
+                .map(Trace::toString).collect(Collectors.toList()));
+        assertEquals(0, graph.tracesByLatency("C", "A").count());
+        assertEquals(0, graph.tracesByLatency("A", "F").count());
+    }
+
+    @Test
+    @Description("First traces without repeated services of a dense graph in order of latency")
+    void testTracesByLatencyOrder() {
+        Graph mesh = new Graph();
+        for (int i = 0; i < 30; i++) {
+            for (int j = 0; j < 30; j++) {
+                if (i != j)
+                    mesh.addEdge("s" + i, "s" + j, 1 + (i * 7 + j * 13) % 17);
+            }
+        }
+        List<Trace> traces = mesh.tracesByLatency("s0", "s1").limit(50).collect(Collectors.toList());
+        assertEquals(50, traces.size());
+        assertEquals(mesh.getShortestTrace("s0", "s1").longValue(), traces.get(0).getLatency());
+        Set<String> distinct = new HashSet<>();
+        for (int i = 0; i < traces.size(); i++) {
+            Trace trace = traces.get(i);
+            assertTrue(i == 0 || traces.get(i - 1).getLatency() <= trace.getLatency());
+            assertEquals(mesh.traceLatency(trace.toString()), trace.getLatency());
+            assertEquals(trace.size(), Set.copyOf(List.of(trace.toString().split("-"))).size());
+            assertTrue(distinct.add(trace.toString()));
+        }
+    }
+
+    @Test
+    @Description("All traces without repeated services of a complete graph")
+    void testAllTracesByLatency() {
+        Graph complete = new Graph();
+        for (int i = 0; i < 6; i++) {
+            for (int j = 0; j < 6; j++) {
+                if (i != j)
+                    complete.addEdge("s" + i, "s" + j, 1 + (i + j) % 5);
+            }
+        }
+        assertEquals(65, complete.tracesByLatency("s0", "s1").count());
+    }
+
     private static Graph getGraph() {
         Graph graph = new Graph();
         graph.addEdge("A", "B", 5);
@@ -97,4 +398,17 @@ class GraphTest {
         graph.addEdge("A", "E", 7);
         return graph;
     }
-}
\ No newline at end of file
+
+    /**
+     * @return graph with connection A-B observed four times
+     */
+    private static Graph getObservedGraph() {
+        Graph graph = new Graph();
+        graph.addEdge("A", "B", 10);
+        graph.addEdge("A", "B", 20);
+        graph.addEdge("A", "B", 30);
+        graph.addEdge("A", "B", 1000);
+        graph.addEdge("B", "C", 5);
+        return graph;
+    }
+}
@@ -0,0 +1,78 @@
+package ua.olena.tracing.graph;
+
+import jdk.jfr.Description;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * Checks that queries answered together give the same results as separate calls.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+@DisplayName("Query Plan Test")
+class QueryPlanTest {
+
+    @Test
+    @Description("Queries sharing the service they start from")
+    void testExecute() {
+        QueryPlan plan = new QueryPlan(List.of(
+                Query.latency("A-B-C"),
+                Query.stops("C", "C", 3, Condition.MAX_STOPS),
+                Query.shortest("A", "C"),
+                Query.stops("A", "C", 4, Condition.EXACT_STOPS),
+                Query.budget("C", "C", 30),
+                Query.shortest("A", "E"),
+                Query.stops("A", "A", 0, Condition.EXACT_STOPS),
+                Query.budget("C", "E", 20),
+                Query.shortest("A", "F"),
+                Query.budget("F", "C", 20),
+                Query.latency("A-E-D")));
+
+        Graph graph = getGraph();
+        String[] expected = {
+                graph.getAverageLatency("A-B-C"),
+                String.valueOf(graph.getTracesByStops("C", "C", 3, Condition.MAX_STOPS)),
+                String.valueOf(graph.getShortestTrace("A", "C")),
+                String.valueOf(graph.getTracesByStops("A", "C", 4, Condition.EXACT_STOPS)),
+                String.valueOf(graph.getShortestTraces("C", "C", 30)),
+                String.valueOf(graph.getShortestTrace("A", "E")),
+                "1",
+                String.valueOf(graph.getShortestTraces("C", "E", 20)),
+                "0",
+                "0",
+                "NO SUCH TRACE"};
+        assertArrayEquals(expected, plan.execute(graph));
+    }
+
+    @Test
+    @Description("Queries answered while the budget lasts")
+    void testExecuteWithBudget() {
+        QueryPlan plan = new QueryPlan(List.of(
+                Query.latency("A-B-C"),
+                Query.stops("C", "C", 3, Condition.MAX_STOPS),
+                Query.budget("C", "C", 30)));
+        QueryBudget budget = QueryBudget.unlimited().withMaxExpandedNodes(3);
+
+        assertArrayEquals(new String[]{"9", "BUDGET EXCEEDED", "BUDGET EXCEEDED"}, plan.execute(getGraph(), budget));
+        assertArrayEquals(new String[]{"9", "2", "7"}, plan.execute(getGraph(), QueryBudget.unlimited()));
+    }
+
+    private static Graph getGraph() {
+        Graph graph = new Graph();
+        graph.addEdge("A", "B", 5);
+        graph.addEdge("B", "C", 4);
+        graph.addEdge("C", "D", 8);
+        graph.addEdge("D", "C", 8);
+        graph.addEdge("D", "E", 6);
+        graph.addEdge("A", "D", 5);
+        graph.addEdge("C", "E", 2);
+        graph.addEdge("E", "B", 3);
+        graph.addEdge("A", "E", 7);
+        return graph;
+    }
+}
@@ -0,0 +1,107 @@
+package ua.olena.tracing.graph;
+
+import jdk.jfr.Description;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that queries about the sliding window only see connections observed during the window.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+@DisplayName("Sliding Window Graph Test")
+class SlidingWindowGraphTest {
+    private static final long MINUTE = 60_000;
+    private static final long START = 1_697_040_000_000L;
+
+    @Test
+    @Description("Connections leave the window with their last observation")
+    void testEviction() {
+        SlidingWindowGraph window = new SlidingWindowGraph(Duration.ofMinutes(10));
+        window.addEdge("A", "B", 4, START);
+        window.addEdge("B", "C", 6, START);
+        window.addEdge("A", "B", 8, START + 5 * MINUTE);
+        Graph graph = window.snapshot();
+        assertEquals("12", graph.getAverageLatency("A-B-C"));
+        assertSame(graph, window.snapshot());
+
+        window.addEdge("C", "D", 1, START + 10 * MINUTE);
+        assertEquals(2, window.getEdgeCount());
+        assertEquals("8", window.snapshot().getAverageLatency("A-B"));
+        assertEquals("NO SUCH TRACE", window.snapshot().getAverageLatency("A-B-C"));
+
+        window.addEdge("B", "C", 6, START);
+        assertEquals(1, window.getDroppedObservations());
+
+        window.advanceTo(START + 30 * MINUTE);
+        assertEquals(0, window.getEdgeCount());
+        assertEquals(0, window.snapshot().getTracesByStops("A", "B", 3, Condition.MAX_STOPS));
+
+        window.addEdge("A", "B", 3);
+        assertEquals("3", window.snapshot().getAverageLatency("A-B"));
+    }
+
+    @Test
+    @Description("Names of services are dropped with their last connection")
+    void testNamePruning() {
+        SlidingWindowGraph window = new SlidingWindowGraph(Duration.ofMinutes(1), 6, Statistic.MEAN);
+        window.addEdge("gateway", "auth", 2, START);
+        window.addEdge("auth", "gateway", 3, START);
+        for (int i = 0; i < 1000; i++) {
+            long timestamp = START + i * 1000L;
+            window.addEdge("gateway", "auth", 2, timestamp);
+            window.addEdge("pod-" + i, "auth", i % 7, timestamp);
+            window.addEdge("auth", "db-" + i, 1, timestamp);
+        }
+
+        assertTrue(window.getNameCount() < 500);
+        assertEquals(121, window.getEdgeCount());
+        Graph graph = window.snapshot();
+        assertEquals("2", graph.getAverageLatency("gateway-auth"));
+        assertEquals("NO SUCH TRACE", graph.getAverageLatency("auth-gateway"));
+        assertEquals("5", graph.getAverageLatency("pod-998>auth>db-999"));
+        assertEquals("NO SUCH TRACE", graph.getAverageLatency("pod-1>auth"));
+
+        window.advanceTo(START + 2000 * 1000L);
+        assertEquals(0, window.getEdgeCount());
+        window.addEdge("A", "B", 3);
+        assertEquals("3", window.snapshot().getAverageLatency("A-B"));
+    }
+
+    @Test
+    @Description("Statistics of the latencies in the window")
+    void testStatistics() {
+        SlidingWindowGraph window = new SlidingWindowGraph(Duration.ofMinutes(1), 6, Statistic.MAX);
+        window.addEdge("A", "B", 4, START);
+        window.addEdge("A", "B", 9, START + 20_000);
+        window.addEdge("A", "B", 5, START + 40_000);
+        assertEquals("9", window.snapshot().getAverageLatency("A-B"));
+        window.advanceTo(START + 70_000);
+        assertEquals("9", window.snapshot().getAverageLatency("A-B"));
+        window.advanceTo(START + 90_000);
+        assertEquals("5", window.snapshot().getAverageLatency("A-B"));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new SlidingWindowGraph(Duration.ofMinutes(1), 6, Statistic.P99));
+        assertThrows(IllegalArgumentException.class,
+                () -> new SlidingWindowGraph(Duration.ofMillis(5), 6, Statistic.MEAN));
+    }
+
+    @Test
+    @Description("Negative latencies are rejected before the window moves")
+    void testNegativeLatency() {
+        SlidingWindowGraph window = new SlidingWindowGraph(Duration.ofMinutes(1));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> window.addEdge("A", "B", -5, START + 2 * MINUTE));
+        assertEquals("Latency must not be negative: A-B -5", e.getMessage());
+        assertEquals(0, window.getEdgeCount());
+    }
+}
@@ -0,0 +1,131 @@
+package ua.olena.tracing.monitoring;
+
+import jdk.jfr.Description;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import ua.olena.tracing.file.TraceReader;
+import ua.olena.tracing.graph.Condition;
+import ua.olena.tracing.graph.Graph;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks counters and JFR events of queries and ingestion.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+@DisplayName("Tracing Metrics Test")
+class TracingMetricsTest {
+
+    @Test
+    @Description("Counters of ingestion")
+    void testIngestionCounters(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("traces.csv");
+        Files.writeString(file, "AB5, BC4, CA3\nAB\n");
+        TracingMetrics.reset();
+        TracingMetrics.enable();
+        try (TraceReader reader = new TraceReader(file)) {
+            reader.next();
+            assertThrows(IllegalArgumentException.class, reader::next);
+        } finally {
+            TracingMetrics.disable();
+        }
+        assertEquals(1, TracingMetrics.getLines());
+        assertEquals(3, TracingMetrics.getEdges());
+        assertEquals(1, TracingMetrics.getParseFailures());
+    }
+
+    @Test
+    @Description("Counters of queries, only while the metrics are enabled")
+    void testQueryCounters() {
+        Graph graph = new Graph();
+        graph.addEdge("A", "B", 5);
+        graph.addEdge("B", "C", 4);
+        graph.addEdge("C", "A", 3);
+        TracingMetrics.reset();
+        TracingMetrics.enable();
+        try {
+            graph.getTracesByStops("A", "A", 6, Condition.MAX_STOPS);
+            graph.getShortestTrace("A", "C");
+            assertEquals(2, TracingMetrics.getQueries());
+            assertEquals(7, TracingMetrics.getVerticesExpanded());
+            assertEquals(7, TracingMetrics.getEdgesRelaxed());
+        } finally {
+            TracingMetrics.disable();
+        }
+
+        getGraph().getShortestTrace("A", "C");
+        assertEquals(2, TracingMetrics.getQueries());
+    }
+
+    @Test
+    @Description("Counters of queries counted with all threads of a pool")
+    void testParallelCounters() {
+        Graph chain = new Graph();
+        for (int vertex = 0; vertex < 5000; vertex++)
+            chain.addEdge("s" + vertex, "s" + (vertex + 1), 1);
+        ForkJoinPool pool = new ForkJoinPool(2);
+        TracingMetrics.reset();
+        TracingMetrics.enable();
+        try {
+            assertEquals(1, chain.countTracesByStops("s0", "s5", 5, Condition.EXACT_STOPS, pool));
+            assertEquals(1, TracingMetrics.getQueries());
+            assertEquals(5, TracingMetrics.getVerticesExpanded());
+            assertEquals(5 * 5000, TracingMetrics.getEdgesRelaxed());
+
+            getGraph().countShortestTraces("A", "A", 20, pool);
+            assertEquals(2, TracingMetrics.getQueries());
+            assertEquals(5 + 4, TracingMetrics.getVerticesExpanded());
+        } finally {
+            TracingMetrics.disable();
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    @Description("JFR events of queries")
+    void testQueryEvents(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("recording.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(QueryEvent.class);
+            recording.start();
+            getGraph().getShortestTraces("A", "A", 20);
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals("ua.olena.tracing.Query"))
+                .collect(Collectors.toList());
+        assertEquals(1, events.size());
+        RecordedEvent event = events.get(0);
+        assertEquals("BUDGET", event.getString("type"));
+        assertEquals("A", event.getString("from"));
+        assertEquals(1, event.getLong("result"));
+        assertEquals("COMPLETE", event.getString("status"));
+        assertTrue(event.getLong("verticesExpanded") > 0);
+    }
+
+    private static Graph getGraph() {
+        Graph graph = new Graph();
+        graph.addEdge("A", "B", 5);
+        graph.addEdge("B", "C", 4);
+        graph.addEdge("C", "A", 3);
+        return graph;
+    }
+}
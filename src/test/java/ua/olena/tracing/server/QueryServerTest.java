@@ -0,0 +1,139 @@
+package ua.olena.tracing.server;
+
+import jdk.jfr.Description;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import ua.olena.tracing.graph.ConcurrentGraph;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks queries and uploads of traces over HTTP.
+ *
+ * @author Olena Openko
+ * 18.10.2026
+ */
+@DisplayName("Query Server Test")
+class QueryServerTest {
+    private final HttpClient client = HttpClient.newHttpClient();
+    private QueryServer server;
+
+    @BeforeEach
+    void start() throws IOException {
+        ConcurrentGraph graph = new ConcurrentGraph();
+        graph.addEdge("A", "B", 5);
+        graph.addEdge("B", "C", 4);
+        graph.publish();
+        server = new QueryServer(graph, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 2, 5000,
+                TimeUnit.HOURS.toMillis(1), 1);
+        server.start();
+    }
+
+    @AfterEach
+    void stop() {
+        server.stop();
+    }
+
+    @Test
+    @Description("Single query and queries from the body")
+    void testQuery() throws Exception {
+        assertResponse(200, "{\"result\":9}", get("shortest A C"));
+        assertResponse(200, "{\"result\":\"NO SUCH TRACE\"}", get("latency A-C"));
+        assertResponse(200, "{\"results\":[9,1,0]}", post("/query", "latency A-B-C\n# comment\n\nstops A C exact 2\n"
+                + "budget A C 9"));
+    }
+
+    @Test
+    @Description("Uploaded traces are answered by the following queries")
+    void testEdges() throws Exception {
+        assertResponse(200, "{\"edges\":3,\"epoch\":2}", post("/edges", "CD8, DE6\nauth-svc>C:1\n"));
+        assertResponse(200, "{\"result\":23}", get("latency A-B-C-D-E"));
+        assertResponse(200, "{\"result\":15}", get("shortest auth-svc E"));
+
+        assertResponse(400, "{\"error\":\"One of the traces does not follow format of LetterLetterNumber E\"}",
+                post("/edges", "EA1\nE"));
+        assertResponse(200, "{\"result\":\"NO SUCH TRACE\"}", get("latency E-A"));
+    }
+
+    @Test
+    @Description("Uploaded traces are published once enough of them are waiting")
+    void testPublishing() throws Exception {
+        ConcurrentGraph graph = new ConcurrentGraph();
+        server.stop();
+        server = new QueryServer(graph, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1, 5000,
+                TimeUnit.HOURS.toMillis(1), 3);
+        server.start();
+
+        assertResponse(200, "{\"edges\":2,\"epoch\":0}", post("/edges", "AB1, BC2"));
+        assertResponse(200, "{\"result\":\"NO SUCH TRACE\"}", get("latency A-B-C"));
+        assertResponse(200, "{\"edges\":1,\"epoch\":1}", post("/edges", "CD3"));
+        assertResponse(200, "{\"result\":6}", get("latency A-B-C-D"));
+    }
+
+    @Test
+    @Description("Wrong requests")
+    void testErrors() throws Exception {
+        assertResponse(400, "{\"error\":\"Wrong query at line 1: shortest A\"}", get("shortest A"));
+        assertResponse(400, "{\"error\":\"Missing parameter q\"}", send(HttpRequest.newBuilder(uri("/query"))));
+        assertResponse(405, "{\"error\":\"Method is not allowed: GET\"}", send(HttpRequest.newBuilder(uri("/edges"))));
+        assertResponse(413, "{\"error\":\"Queries are larger than 1048576 bytes\"}",
+                post("/query", "#".repeat(QueryServer.MAX_QUERY_BYTES + 1)));
+        assertResponse(413, "{\"error\":\"Traces are larger than 8388608 bytes\"}",
+                post("/edges", " ".repeat(QueryServer.MAX_EDGE_BYTES + 1)));
+    }
+
+    @Test
+    @Description("Queries with a huge budget are stopped at the timeout and free their worker")
+    void testTimeout() throws Exception {
+        ConcurrentGraph loop = new ConcurrentGraph();
+        loop.addEdge("A", "B", 1);
+        loop.addEdge("B", "A", 1);
+        loop.publish();
+        server.stop();
+        server = new QueryServer(loop, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1, 200);
+        server.start();
+
+        for (int i = 0; i < 3; i++)
+            assertResponse(503, "{\"error\":\"Query is not answered in 200 ms\"}", get("budget A A 2000000000"));
+        assertResponse(200, "{\"result\":2}", get("budget A A 5"));
+        loop.addEdge("D", "E", 5);
+        loop.addEdge("E", "F", 5);
+        loop.publish();
+        assertResponse(200, "{\"result\":1}", get("budget D F 2000000000"));
+    }
+
+    private HttpResponse<String> get(String query) throws Exception {
+        return send(HttpRequest.newBuilder(uri("/query?q=" + URLEncoder.encode(query, StandardCharsets.UTF_8))));
+    }
+
+    private HttpResponse<String> post(String path, String body) throws Exception {
+        return send(HttpRequest.newBuilder(uri(path)).POST(HttpRequest.BodyPublishers.ofString(body)));
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + server.getPort() + path);
+    }
+
+    private static void assertResponse(int status, String body, HttpResponse<String> response) {
+        assertEquals(status, response.statusCode());
+        assertEquals(body, response.body());
+    }
+}